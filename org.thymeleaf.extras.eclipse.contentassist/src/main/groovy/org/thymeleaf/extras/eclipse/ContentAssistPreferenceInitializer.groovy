@@ -25,12 +25,58 @@ import org.eclipse.core.runtime.preferences.AbstractPreferenceInitializer
  */
 class ContentAssistPreferenceInitializer extends AbstractPreferenceInitializer {
 
-	static final String AUTO_PROPOSE_PREF = 'autoProposeOn'
+	static final String AUTO_PROPOSE_PREF         = 'autoProposeOn'
+	static final String MAX_PROPOSALS_PREF        = 'maxProposals'
+	static final String SCAN_PARALLELISM_PREF     = 'scanParallelism'
+	static final String SCAN_VIRTUAL_THREADS_PREF = 'scanVirtualThreads'
+	static final String TEMPLATE_ROOTS_PREF       = 'templateRoots'
+
+	static final int DEFAULT_MAX_PROPOSALS = 50
+	static final String DEFAULT_TEMPLATE_ROOTS = 'src/main/resources/templates'
+
+	/**
+	 * Return the default number of threads to use for scanning projects, which
+	 * leaves some processors free for Eclipse's own indexing.
+	 * 
+	 * @return
+	 */
+	static int defaultScanParallelism() {
+
+		return Math.max(2, Runtime.runtime.availableProcessors().intdiv(2) as int)
+	}
+
+	/**
+	 * Return the most proposals that each kind of content assist should come
+	 * up with, from the plugin preferences if they're available.
+	 * 
+	 * @return
+	 */
+	static int maxProposals() {
+
+		return ContentAssistPlugin.default?.preferenceStore?.getInt(MAX_PROPOSALS_PREF) ?: DEFAULT_MAX_PROPOSALS
+	}
+
+	/**
+	 * Return the folders, relative to a project, that templates are kept in,
+	 * from the plugin preferences if they're available.  The preference is a
+	 * comma-separated list of paths.
+	 * 
+	 * @return
+	 */
+	static List<String> templateRoots() {
+
+		def templateRoots = ContentAssistPlugin.default?.preferenceStore?.getString(TEMPLATE_ROOTS_PREF) ?: DEFAULT_TEMPLATE_ROOTS
+		return templateRoots.split(',')*.trim().findAll { templateRoot -> templateRoot }
+	}
 
 	@Override
 	void initializeDefaultPreferences() {
 
 		def preferences = ContentAssistPlugin.default.preferenceStore
 		preferences.setDefault(AUTO_PROPOSE_PREF, true)
+		preferences.setDefault(MAX_PROPOSALS_PREF, DEFAULT_MAX_PROPOSALS)
+		preferences.setDefault(SCAN_PARALLELISM_PREF, defaultScanParallelism())
+		preferences.setDefault(SCAN_VIRTUAL_THREADS_PREF, false)
+		preferences.setDefault(TEMPLATE_ROOTS_PREF, DEFAULT_TEMPLATE_ROOTS)
 	}
 }
@@ -0,0 +1,41 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse
+
+import org.eclipse.ui.IStartup
+import org.eclipse.ui.PlatformUI
+import org.thymeleaf.extras.eclipse.dialect.cache.EditorOpenListener
+
+/**
+ * Starts the plugin along with the workbench so that dialects can be loaded
+ * in the background as HTML files are opened, rather than on the first use of
+ * content assist.
+ * 
+ * @author Emanuel Rabina
+ */
+class ContentAssistStartup implements IStartup {
+
+	@Override
+	void earlyStartup() {
+
+		def workbench = PlatformUI.workbench
+		def editorOpenListener = ContentAssistPlugin.default.getBean(EditorOpenListener)
+		workbench.display.asyncExec { ->
+			editorOpenListener.listen(workbench)
+		}
+	}
+}
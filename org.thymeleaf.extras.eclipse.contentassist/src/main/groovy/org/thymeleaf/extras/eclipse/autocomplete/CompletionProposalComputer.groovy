@@ -17,6 +17,9 @@
 package org.thymeleaf.extras.eclipse.autocomplete
 
 import org.eclipse.core.runtime.IProgressMonitor
+import org.eclipse.jface.text.IDocument
+import org.eclipse.jface.text.contentassist.ICompletionProposal
+import org.eclipse.jface.text.contentassist.ICompletionProposalExtension
 import org.eclipse.wst.sse.ui.contentassist.CompletionProposalInvocationContext
 import org.eclipse.wst.sse.ui.contentassist.ICompletionProposalComputer
 import org.thymeleaf.extras.eclipse.ContentAssistPlugin
@@ -25,23 +28,49 @@ import org.thymeleaf.extras.eclipse.autocomplete.generators.AttributeProcessorPr
 import org.thymeleaf.extras.eclipse.autocomplete.generators.AttributeRestrictionProposalGenerator
 import org.thymeleaf.extras.eclipse.autocomplete.generators.ElementProcessorProposalGenerator
 import org.thymeleaf.extras.eclipse.autocomplete.generators.ExpressionObjectProposalGenerator
+import org.thymeleaf.extras.eclipse.autocomplete.generators.FragmentProposalGenerator
+import org.thymeleaf.extras.eclipse.wrappers.JavaProjectLocator
+import static org.thymeleaf.extras.eclipse.ContentAssistPreferenceInitializer.maxProposals
+
+import java.util.regex.Pattern
 
 /**
- * Auto-completion proposal generator for Thymeleaf processors and expression
- * object methods.
+ * Auto-completion proposal generator for Thymeleaf processors, expression
+ * object methods, and the templates and fragments of fragment expressions.
+ * <p>
+ * The point in the document at which content assist was invoked is worked out
+ * just the once into a {@link ContentAssistContext}, which is then shared by
+ * only those proposal generators that apply to it.
+ * <p>
+ * Within a content assist session, the proposals from the first request are
+ * kept, and as the user continues typing a name, later requests narrow down
+ * those proposals to the ones still matching what has been typed instead of
+ * going through the generators again.  Generators only come up with the best
+ * few proposals though, so if any of them could have come up with more then
+ * the generators are asked again each time instead.
  * 
  * @author Emanuel Rabina
  */
 class CompletionProposalComputer implements ICompletionProposalComputer {
 
+	private static final Pattern NAME_CHARACTERS = ~/[\w:.#-]*/
+
 	private final List<ProposalGenerator> proposalGenerators
+	private final JavaProjectLocator javaProjectLocator
+
+	// Proposals of the current content assist session
+	private IDocument sessionDocument
+	private int sessionOffset
+	private List<ICompletionProposal> sessionProposals
+	private String narrowedText
+	private List<ICompletionProposal> narrowedProposals
 
 	final String errorMessage = null
 
 	/**
 	 * Constructor, used by Eclipse to create an instance of this class, so
 	 * defaults to using the real proposal generators for generating autocomplete
-	 * results.
+	 * results, and the real project locator.
 	 */
 	CompletionProposalComputer() {
 
@@ -49,7 +78,9 @@ class CompletionProposalComputer implements ICompletionProposalComputer {
 			ContentAssistPlugin.default.getBean(ElementProcessorProposalGenerator),
 			ContentAssistPlugin.default.getBean(AttributeProcessorProposalGenerator),
 			ContentAssistPlugin.default.getBean(AttributeRestrictionProposalGenerator),
-			ContentAssistPlugin.default.getBean(ExpressionObjectProposalGenerator)
+			ContentAssistPlugin.default.getBean(ExpressionObjectProposalGenerator),
+			ContentAssistPlugin.default.getBean(FragmentProposalGenerator),
+			ContentAssistPlugin.default.getBean(JavaProjectLocator)
 		)
 	}
 
@@ -61,19 +92,35 @@ class CompletionProposalComputer implements ICompletionProposalComputer {
 	 * @param attributeProcessorProposalGenerator
 	 * @param attributeRestrictionProposalGenerator
 	 * @param expressionObjectProposalGenerator
+	 * @param fragmentProposalGenerator
+	 * @param javaProjectLocator
 	 */
 	CompletionProposalComputer(
 		ElementProcessorProposalGenerator elementProcessorProposalGenerator,
 		AttributeProcessorProposalGenerator attributeProcessorProposalGenerator,
 		AttributeRestrictionProposalGenerator attributeRestrictionProposalGenerator,
-		ExpressionObjectProposalGenerator expressionObjectProposalGenerator
+		ExpressionObjectProposalGenerator expressionObjectProposalGenerator,
+		FragmentProposalGenerator fragmentProposalGenerator,
+		JavaProjectLocator javaProjectLocator
 	) {
 		proposalGenerators = [
 			elementProcessorProposalGenerator,
 			attributeProcessorProposalGenerator,
 			attributeRestrictionProposalGenerator,
-			expressionObjectProposalGenerator
+			expressionObjectProposalGenerator,
+			fragmentProposalGenerator
 		]
+		this.javaProjectLocator = javaProjectLocator
+	}
+
+	/**
+	 * Forget the proposals of the current content assist session.
+	 */
+	private void clearSession() {
+
+		sessionDocument = null
+		sessionProposals = null
+		narrowedProposals = null
 	}
 
 	@Override
@@ -82,16 +129,45 @@ class CompletionProposalComputer implements ICompletionProposalComputer {
 		def viewer = context.viewer
 		if (viewer) {
 			def cursorPosition = context.invocationOffset
+
+			def sessionResults = narrowSessionProposals(context.document, cursorPosition)
+			if (sessionResults != null) {
+				return sessionResults
+			}
+
 			def documentRegion = viewer.getStructuredDocumentRegion(cursorPosition)
 			if (documentRegion) {
-				def node = viewer.getNodeAt(cursorPosition)
-				def textRegion = documentRegion.getRegionAtCharacterOffset(cursorPosition)
 				def document = context.document
+				def contentAssistContext = new ContentAssistContext(viewer.getNodeAt(cursorPosition),
+					documentRegion.getRegionAtCharacterOffset(cursorPosition), documentRegion, document, cursorPosition,
+					javaProjectLocator)
+
+				// Create proposals from the generators that apply at this point
+				def proposals = []
+				def limit = maxProposals()
+				def limitReached = false
+				proposalGenerators.each { proposalGenerator ->
+					if (proposalGenerator.appliesTo(contentAssistContext)) {
+						def generatedProposals = proposalGenerator.generate(contentAssistContext)
+						limitReached |= generatedProposals.size() >= limit
+						proposals.addAll(generatedProposals)
+					}
+				}
 
-				// Create proposals from the generators given to us by the computers
-				return proposalGenerators.inject([]) { acc, proposalGenerator ->
-					return acc + proposalGenerator.generate(node, textRegion, documentRegion, document, cursorPosition)
+				// Remember the proposals for narrowing down as the user keeps typing.
+				// Empty results aren't kept as dialects may still be loading, nor are
+				// results that may have left out proposals that could match later.
+				if (proposals && !limitReached &&
+					proposals.every { proposal -> proposal instanceof ICompletionProposalExtension }) {
+					sessionDocument = document
+					sessionOffset = cursorPosition
+					sessionProposals = narrowedProposals = proposals
+					narrowedText = ''
 				}
+				else {
+					clearSession()
+				}
+				return proposals
 			}
 		}
 		return Collections.EMPTY_LIST
@@ -104,16 +180,51 @@ class CompletionProposalComputer implements ICompletionProposalComputer {
 	}
 
 	/**
-	 * Do nothing.
+	 * Narrow down the proposals of the current session to those still valid
+	 * for the given offset, so long as only name characters have been typed
+	 * since the proposals were made.
+	 * 
+	 * @param document
+	 * @param offset
+	 * @return The narrowed proposals, or <tt>null</tt> if the session proposals
+	 *         can't be used for the offset.
+	 */
+	private List<ICompletionProposal> narrowSessionProposals(IDocument document, int offset) {
+
+		if (sessionProposals == null || !document.is(sessionDocument) || offset < sessionOffset) {
+			return null
+		}
+		def typedText = document.get(sessionOffset, offset - sessionOffset)
+		if (!(typedText ==~ NAME_CHARACTERS)) {
+			return null
+		}
+
+		// Narrow from the last set of proposals when more has only been typed on
+		// the end of what they were narrowed with, otherwise (eg: after deleting
+		// or overwriting characters) start from the full set again
+		def candidates = typedText.startsWith(narrowedText) ? narrowedProposals : sessionProposals
+		narrowedProposals = candidates.findAll { proposal ->
+			return ((ICompletionProposalExtension)proposal).isValidFor(document, offset)
+		}
+		narrowedText = typedText
+		return narrowedProposals
+	}
+
+	/**
+	 * Forget the proposals of the session that just ended.
 	 */
 	@Override
 	void sessionEnded() {
+
+		clearSession()
 	}
 
 	/**
-	 * Do nothing.
+	 * Start a new session without any proposals from previous ones.
 	 */
 	@Override
 	void sessionStarted() {
+
+		clearSession()
 	}
 }
@@ -0,0 +1,171 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.thymeleaf.extras.eclipse.autocomplete
+
+import org.eclipse.jdt.core.IJavaProject
+import org.eclipse.jface.text.IDocument
+import org.eclipse.wst.sse.core.internal.provisional.text.IStructuredDocumentRegion
+import org.eclipse.wst.sse.core.internal.provisional.text.ITextRegion
+import org.thymeleaf.extras.eclipse.wrappers.JavaProjectLocator
+import org.w3c.dom.Node
+
+import javax.xml.namespace.QName
+
+/**
+ * Everything known about the point in a document at which content assist was
+ * invoked, shared between all of the proposal generators for that invocation.
+ * Anything that takes some work to figure out, like the namespaces known at
+ * the current node or the project the document belongs to, is worked out only
+ * when first asked for and then kept for any other generator that needs it.
+ * 
+ * @author Emanuel Rabina
+ */
+class ContentAssistContext {
+
+	final Node node
+	final ITextRegion textRegion
+	final IStructuredDocumentRegion documentRegion
+	final IDocument document
+	final int cursorPosition
+
+	private final JavaProjectLocator javaProjectLocator
+
+	/**
+	 * Constructor, set the details of the content assist invocation.
+	 * 
+	 * @param node
+	 *   The DOM node at the cursor.
+	 * @param textRegion
+	 *   The text region at the cursor, if any.
+	 * @param documentRegion
+	 *   The structured document region at the cursor.
+	 * @param document
+	 * @param cursorPosition
+	 * @param javaProjectLocator
+	 *   Used to find the project of the document, if a generator needs it.
+	 */
+	ContentAssistContext(Node node, ITextRegion textRegion, IStructuredDocumentRegion documentRegion,
+		IDocument document, int cursorPosition, JavaProjectLocator javaProjectLocator) {
+
+		this.node               = node
+		this.textRegion         = textRegion
+		this.documentRegion     = documentRegion
+		this.document           = document
+		this.cursorPosition     = cursorPosition
+		this.javaProjectLocator = javaProjectLocator
+	}
+
+	/**
+	 * The name of the attribute whose value the cursor is in, or <tt>null</tt> if
+	 * the cursor isn't in an attribute value.
+	 */
+	@Lazy
+	String attributeValueName = { ->
+		if (textRegion?.xmlAttributeValue) {
+			def nameRegion = getTextRegionRelative(-2)
+			if (nameRegion?.xmlAttribute) {
+				return documentRegion.getText(nameRegion)
+			}
+		}
+		return null
+	}()
+
+	/**
+	 * The attribute value entered up to the cursor, including any opening quote,
+	 * or <tt>null</tt> if the cursor isn't in an attribute value.
+	 */
+	@Lazy
+	String attributeValuePattern = { ->
+		if (textRegion?.xmlAttributeValue) {
+			def valueStart = documentRegion.getStartOffset(textRegion)
+			return cursorPosition > valueStart ? document.get(valueStart, cursorPosition - valueStart) : ''
+		}
+		return null
+	}()
+
+	/**
+	 * Whether the node at the cursor is an element.
+	 */
+	@Lazy
+	boolean elementNode = { -> node.elementNode }()
+
+	/**
+	 * The expression object method name entered up to the cursor.
+	 */
+	@Lazy
+	String expressionObjectMethodNamePattern = { -> document.findExpressionObjectMethodNamePattern(cursorPosition) }()
+
+	/**
+	 * The namespaces known at the node at the cursor.
+	 */
+	@Lazy
+	List<QName> knownNamespaces = { -> node.knownNamespaces }()
+
+	/**
+	 * The character just before the cursor, or <tt>null</tt> if the cursor is at
+	 * the start of the document.
+	 */
+	@Lazy
+	Character precedingCharacter = { -> cursorPosition > 0 ? document.getChar(cursorPosition - 1) : null }()
+
+	/**
+	 * The processor name entered up to the cursor.
+	 */
+	@Lazy
+	String processorNamePattern = { -> document.findProcessorNamePattern(cursorPosition) }()
+
+	/**
+	 * The project the document belongs to.
+	 */
+	@Lazy
+	IJavaProject project = { -> javaProjectLocator.locate() }()
+
+	/**
+	 * Whether the node at the cursor is a text node.
+	 */
+	@Lazy
+	boolean textNode = { -> node.textNode }()
+
+	/**
+	 * The position of the text region at the cursor in the list of text regions
+	 * of its document region, or <tt>-1</tt> if there is no text region at the
+	 * cursor.
+	 */
+	@Lazy
+	int textRegionIndex = { -> textRegion && documentRegion ? documentRegion.regions.indexOf(textRegion) : -1 }()
+
+	/**
+	 * Return a text region relative to the one at the cursor.
+	 * 
+	 * @param relativeIndex
+	 *   Where the text region is relative to the one at the cursor, eg:
+	 *   <tt>-1</tt> for the text region just before it.
+	 * @return The text region, or <tt>null</tt> if there is no text region at
+	 *   that position.
+	 */
+	ITextRegion getTextRegionRelative(int relativeIndex) {
+
+		def index = textRegionIndex
+		if (index == -1) {
+			return null
+		}
+		index += relativeIndex
+		def textRegions = documentRegion.regions
+		return index >= 0 && index < textRegions.size() ? textRegions.get(index) : null
+	}
+}
@@ -17,13 +17,9 @@
 package org.thymeleaf.extras.eclipse.autocomplete.generators
 
 import org.eclipse.jface.resource.ImageRegistry
-import org.eclipse.jface.text.IDocument
-import org.eclipse.ui.IWorkbench
-import org.eclipse.wst.sse.core.internal.provisional.text.IStructuredDocumentRegion
-import org.eclipse.wst.sse.core.internal.provisional.text.ITextRegion
+import org.thymeleaf.extras.eclipse.autocomplete.ContentAssistContext
 import org.thymeleaf.extras.eclipse.autocomplete.proposals.AttributeRestrictionCompletionProposal
 import org.thymeleaf.extras.eclipse.dialect.cache.DialectCache
-import org.w3c.dom.Node
 
 import jakarta.inject.Inject
 import jakarta.inject.Named
@@ -40,32 +36,34 @@ class AttributeRestrictionProposalGenerator implements ProposalGenerator<Attribu
 	private final DialectCache dialectCache
 	@Inject
 	private final ImageRegistry imageRegistry
-	@Inject
-	private final IWorkbench workbench
 
 	@Override
-	List<AttributeRestrictionCompletionProposal> generate(Node node, ITextRegion textRegion,
-		IStructuredDocumentRegion documentRegion, IDocument document, int cursorPosition) {
+	boolean appliesTo(ContentAssistContext context) {
+
+		return context.elementNode && context.textRegion?.xmlAttribute && context.textRegionIndex >= 2
+	}
+
+	@Override
+	List<AttributeRestrictionCompletionProposal> generate(ContentAssistContext context) {
 
-		if (node.elementNode && textRegion?.xmlAttribute) {
-			def textRegions = documentRegion.regions
-			def attributeNameTextRegion = textRegions.get(textRegions.indexOf(textRegion) - 2)
-			def attributeName = document.get(documentRegion.startOffset + attributeNameTextRegion.start,
-				attributeNameTextRegion.textLength)
+		def documentRegion = context.documentRegion
+		def textRegion = context.textRegion
+		def attributeNameTextRegion = context.getTextRegionRelative(-2)
+		def attributeName = context.document.get(documentRegion.startOffset + attributeNameTextRegion.start,
+			attributeNameTextRegion.textLength)
 
-			def attributeProcessor = dialectCache.getProcessor(workbench.currentJavaProject, node.knownNamespaces, attributeName)
-			if (attributeProcessor?.isSetRestrictions()) {
+		def attributeProcessor = dialectCache.getProcessor(context.project, context.knownNamespaces, attributeName)
+		if (attributeProcessor?.isSetRestrictions()) {
 
-				def restrictions = attributeProcessor.restrictions
-				if (restrictions.isSetValues()) {
+			def restrictions = attributeProcessor.restrictions
+			if (restrictions.isSetValues()) {
 
-					def proposals = new ArrayList<AttributeRestrictionCompletionProposal>()
-					for (def value: restrictions.values) {
-						proposals.add(new AttributeRestrictionCompletionProposal(imageRegistry, value,
-							documentRegion.getStartOffset(textRegion) + 1, textRegion.textLength - 2, cursorPosition))
-					}
-					return proposals
+				def proposals = new ArrayList<AttributeRestrictionCompletionProposal>()
+				for (def value: restrictions.values) {
+					proposals.add(new AttributeRestrictionCompletionProposal(imageRegistry, value,
+						documentRegion.getStartOffset(textRegion) + 1, textRegion.textLength - 2, context.cursorPosition))
 				}
+				return proposals
 			}
 		}
 		return []
@@ -17,14 +17,11 @@
 package org.thymeleaf.extras.eclipse.autocomplete.generators
 
 import org.eclipse.jface.resource.ImageRegistry
-import org.eclipse.jface.text.IDocument
-import org.eclipse.ui.IWorkbench
-import org.eclipse.wst.sse.core.internal.provisional.text.IStructuredDocumentRegion
-import org.eclipse.wst.sse.core.internal.provisional.text.ITextRegion
 import org.eclipse.wst.xml.core.internal.regions.DOMRegionContext
+import org.thymeleaf.extras.eclipse.autocomplete.ContentAssistContext
 import org.thymeleaf.extras.eclipse.autocomplete.proposals.ElementProcessorCompletionProposal
 import org.thymeleaf.extras.eclipse.dialect.cache.DialectCache
-import org.w3c.dom.Node
+import static org.thymeleaf.extras.eclipse.ContentAssistPreferenceInitializer.maxProposals
 
 import jakarta.inject.Inject
 import jakarta.inject.Named
@@ -41,40 +38,21 @@ class ElementProcessorProposalGenerator implements ProposalGenerator<ElementProc
 	private final DialectCache dialectCache
 	@Inject
 	private final ImageRegistry imageRegistry
-	@Inject
-	private final IWorkbench workbench
-
-	@Override
-	List<ElementProcessorCompletionProposal> generate(Node node, ITextRegion textRegion,
-		IStructuredDocumentRegion documentRegion, IDocument document, int cursorPosition) {
-
-		if (canMakeElementProcessorSuggestions(node, textRegion, documentRegion, document, cursorPosition)) {
-			def pattern = document.findProcessorNamePattern(cursorPosition)
-			return dialectCache.getElementProcessors(workbench.currentJavaProject, node.knownNamespaces, pattern)
-				.collect { processor ->
-					return new ElementProcessorCompletionProposal(imageRegistry, processor, pattern.length(), cursorPosition)
-				}
-		}
-		return []
-	}
 
 	/**
 	 * Check if, given everything, element processor suggestions should be made.
 	 * 
-	 * @param node
-	 * @param textregion
-	 * @param documentregion
-	 * @param document
-	 * @param cursorposition
+	 * @param context
 	 * @return <tt>true</tt> if element processor suggestions should be made.
 	 */
-	private static boolean canMakeElementProcessorSuggestions(Node node, ITextRegion textRegion,
-		IStructuredDocumentRegion documentRegion, IDocument document, int cursorPosition) {
+	@Override
+	boolean appliesTo(ContentAssistContext context) {
 
 		// If we're in a text node, then the first non-whitespace character before
 		// the cursor in the document should be an opening bracket
-		if (node.textNode) {
-			def position = cursorPosition - 1
+		if (context.textNode) {
+			def document = context.document
+			def position = context.cursorPosition - 1
 			while (position >= 0 && document.getChar(position).whitespace) {
 				position--
 			}
@@ -83,18 +61,27 @@ class ElementProcessorProposalGenerator implements ProposalGenerator<ElementProc
 
 		// If we're in an element node, then the previous text region should be an
 		// opening XML tag
-		if (node.elementNode) {
-			if (textRegion) {
-				def textRegions = documentRegion.regions
-				def currentTextRegionIndex = textRegions.indexOf(textRegion)
-				if (currentTextRegionIndex > 1) {
-					def previousRegion = textRegions.get(currentTextRegionIndex - 1)
-					return (previousRegion.type == DOMRegionContext.XML_TAG_OPEN) &&
-						!document.getChar(cursorPosition - 1).whitespace
-				}
+		if (context.elementNode) {
+			if (context.textRegionIndex > 1) {
+				def previousRegion = context.getTextRegionRelative(-1)
+				return (previousRegion.type == DOMRegionContext.XML_TAG_OPEN) &&
+					!context.precedingCharacter.whitespace
 			}
 		}
 
 		return false
 	}
+
+	@Override
+	List<ElementProcessorCompletionProposal> generate(ContentAssistContext context) {
+
+		def pattern = context.processorNamePattern
+		def project = context.project
+		return dialectCache.getElementProcessorMatches(project, context.knownNamespaces, pattern, maxProposals())
+			.collect { match ->
+				def processor = match.item
+				return new ElementProcessorCompletionProposal(imageRegistry, processor,
+					{ -> dialectCache.getDocumentation(project, processor) }, pattern.length(), context.cursorPosition)
+			}
+	}
 }
@@ -0,0 +1,93 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.autocomplete.generators
+
+import org.eclipse.jface.resource.ImageRegistry
+import org.thymeleaf.extras.eclipse.autocomplete.ContentAssistContext
+import org.thymeleaf.extras.eclipse.autocomplete.proposals.FragmentCompletionProposal
+import org.thymeleaf.extras.eclipse.dialect.cache.NameMatcher
+import org.thymeleaf.extras.eclipse.template.cache.TemplateCache
+import org.thymeleaf.extras.eclipse.template.model.FragmentReference
+import static org.thymeleaf.extras.eclipse.ContentAssistPreferenceInitializer.maxProposals
+
+import jakarta.inject.Inject
+import jakarta.inject.Named
+
+/**
+ * Proposal generator for the template names and fragments of fragment
+ * expressions, in the values of {@code th:insert}, {@code th:replace}, and
+ * {@code th:include} attributes.
+ * 
+ * @author Emanuel Rabina
+ */
+@Named
+class FragmentProposalGenerator implements ProposalGenerator<FragmentCompletionProposal> {
+
+	@Inject
+	private final TemplateCache templateCache
+	@Inject
+	private final ImageRegistry imageRegistry
+
+	@Override
+	boolean appliesTo(ContentAssistContext context) {
+
+		return context.elementNode && FragmentReference.isFragmentIncludeAttribute(context.attributeValueName)
+	}
+
+	@Override
+	List<FragmentCompletionProposal> generate(ContentAssistContext context) {
+
+		def pattern = context.attributeValuePattern
+		def fragmentIndex = templateCache.getFragmentIndex(context.project)
+		if (pattern == null || !fragmentIndex) {
+			return []
+		}
+
+		def reference = FragmentReference.parse(pattern)
+		def cursorPosition = context.cursorPosition
+
+		// Complete the fragment name once the template name has been given
+		if (reference.fragmentName != null) {
+			def template = fragmentIndex.findTemplate(reference.templateName)
+			def fragmentName = reference.fragmentName
+			if (!template || !pattern.endsWith(fragmentName)) {
+				return []
+			}
+			return template.fragments
+				.findAll { fragment -> NameMatcher.matches(fragment.name, fragmentName) }
+				.take(maxProposals())
+				.collect { fragment ->
+					return new FragmentCompletionProposal(imageRegistry, fragment.signature,
+						"${fragment.signature} - ${template.name}",
+						{ -> templateCache.getDocumentation(template, fragment) }, fragmentName.length(), cursorPosition)
+				}
+		}
+
+		def templateName = reference.templateName
+		if (!pattern.endsWith(templateName)) {
+			return []
+		}
+		return fragmentIndex.findTemplateNames(templateName)
+			.take(maxProposals())
+			.collect { name ->
+				def template = fragmentIndex.findTemplate(name)
+				return new FragmentCompletionProposal(imageRegistry, name, name,
+					template ? { -> templateCache.getDocumentation(template, null) } : null,
+					templateName.length(), cursorPosition)
+			}
+	}
+}
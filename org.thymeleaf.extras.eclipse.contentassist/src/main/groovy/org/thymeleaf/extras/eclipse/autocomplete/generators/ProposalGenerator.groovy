@@ -16,11 +16,8 @@
 
 package org.thymeleaf.extras.eclipse.autocomplete.generators
 
-import org.eclipse.jface.text.IDocument
 import org.eclipse.jface.text.contentassist.ICompletionProposal
-import org.eclipse.wst.sse.core.internal.provisional.text.IStructuredDocumentRegion
-import org.eclipse.wst.sse.core.internal.provisional.text.ITextRegion
-import org.w3c.dom.Node
+import org.thymeleaf.extras.eclipse.autocomplete.ContentAssistContext
 
 /**
  * Class for generating Eclipse autocompletion proposals.
@@ -31,15 +28,21 @@ import org.w3c.dom.Node
 interface ProposalGenerator<P extends ICompletionProposal> {
 
 	/**
-	 * Generate the autocomplete proposals.
+	 * Return whether this generator can make proposals for the given content
+	 * assist context.  Only generators that can are asked to generate
+	 * proposals.
 	 * 
-	 * @param node
-	 * @param textRegion
-	 * @param documentRegion
-	 * @param document
-	 * @param cursorPosition
+	 * @param context
+	 * @return <tt>true</tt> if proposals can be made.
+	 */
+	boolean appliesTo(ContentAssistContext context)
+
+	/**
+	 * Generate the autocomplete proposals.  Only called if {@link #appliesTo}
+	 * returned <tt>true</tt> for the same context.
+	 * 
+	 * @param context
 	 * @return List of autocomplete proposals.
 	 */
-	List<P> generate(Node node, ITextRegion textRegion, IStructuredDocumentRegion documentRegion,
-		IDocument document, int cursorPosition)
+	List<P> generate(ContentAssistContext context)
 }
@@ -38,19 +38,23 @@ class AttributeProcessorCompletionProposal extends AbstractCompletionProposal {
 	 * @param imageRegistry
 	 * @param processor
 	 *   Attribute processor being proposed.
+	 * @param documentationLoader
+	 *   Closure returning the rendered documentation for the proposed item,
+	 *   called only once the documentation is asked for.
 	 * @param charsEntered
-	 *   How much of the entire proposal has already been entered by the user.
+	 *   How much has already been typed for the proposal, which the proposal
+	 *   replaces when selected.
 	 * @param cursorPosition
 	 * @param dataAttr
 	 *   Whether the data-* version of this processor should be used for the
 	 *   proposal.
 	 */
-	AttributeProcessorCompletionProposal(ImageRegistry imageRegistry, AttributeProcessor processor, int charsEntered,
-		int cursorPosition, boolean dataAttr) {
+	AttributeProcessorCompletionProposal(ImageRegistry imageRegistry, AttributeProcessor processor,
+		Closure<String> documentationLoader, int charsEntered, int cursorPosition, boolean dataAttr) {
 
-		super(processor,
-			!dataAttr ? processor.fullName.substring(charsEntered) :
-			            processor.fullDataName.substring(charsEntered),
+		super(documentationLoader,
+			!dataAttr ? processor.fullName : processor.fullDataName,
+			cursorPosition - charsEntered,
 			cursorPosition,
 			imageRegistry.get(ContentAssistPlugin.IMAGE_ATTRIBUTE_PROCESSOR))
 
@@ -60,12 +64,12 @@ class AttributeProcessorCompletionProposal extends AbstractCompletionProposal {
 	@Override
 	void apply(IDocument document, char trigger, int offset) {
 
-		document.replace(offset, 0, replacementString.substring(offset - cursorPosition) + '=""')
+		document.replace(replacementOffset, offset - replacementOffset, replacementString + '=""')
 	}
 
 	@Override
 	Point getSelection(IDocument document) {
 
-		return new Point(cursorPosition + replacementString.length() + 2, 0)
+		return new Point(replacementOffset + replacementString.length() + 2, 0)
 	}
 }
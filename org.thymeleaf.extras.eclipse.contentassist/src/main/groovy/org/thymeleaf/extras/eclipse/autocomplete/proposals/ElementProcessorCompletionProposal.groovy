@@ -41,14 +41,18 @@ class ElementProcessorCompletionProposal extends AbstractCompletionProposal {
 	 * @param imageRegistry
 	 * @param processor
 	 *   Element processor being proposed.
+	 * @param documentationLoader
+	 *   Closure returning the rendered documentation for the proposed item,
+	 *   called only once the documentation is asked for.
 	 * @param charsEntered
-	 *   How much of the entire proposal has already been entered by the user.
+	 *   How much has already been typed for the proposal, which the proposal
+	 *   replaces when selected.
 	 * @param cursorposition
 	 */
 	ElementProcessorCompletionProposal(ImageRegistry imageRegistry, ElementProcessor processor,
-		int charsEntered, int cursorPosition) {
+		Closure<String> documentationLoader, int charsEntered, int cursorPosition) {
 
-		super(processor, processor.fullName.substring(charsEntered), cursorPosition,
+		super(documentationLoader, processor.fullName, cursorPosition - charsEntered, cursorPosition,
 			imageRegistry.get(ContentAssistPlugin.IMAGE_ELEMENT_PROCESSOR))
 
 		this.displayString = processor.fullName
@@ -57,16 +61,16 @@ class ElementProcessorCompletionProposal extends AbstractCompletionProposal {
 	@Override
 	void apply(IDocument document, char trigger, int offset) {
 
-		def replacement = "${replacementString.substring(offset - cursorPosition)}>"
+		def replacement = "${replacementString}>"
 		if (addEndTag) {
 			replacement += "</${displayString}>"
 		}
-		document.replace(offset, 0, replacement)
+		document.replace(replacementOffset, offset - replacementOffset, replacement)
 	}
 
 	@Override
 	Point getSelection(IDocument document) {
 
-		return new Point(cursorPosition + replacementString.length() + 1, 0)
+		return new Point(replacementOffset + replacementString.length() + 1, 0)
 	}
 }
@@ -38,13 +38,18 @@ class ExpressionObjectMethodCompletionProposal extends AbstractCompletionProposa
 	 * @param imageRegistry
 	 * @param method
 	 *   Expression object method being proposed.
+	 * @param documentationLoader
+	 *   Closure returning the rendered documentation for the proposed item,
+	 *   called only once the documentation is asked for.
 	 * @param charsEntered
-	 *   How much of the entire proposal has already been entered by the user.
+	 *   How much has already been typed for the proposal, which the proposal
+	 *   replaces when selected.
 	 * @param cursorPosition
 	 */
-	ExpressionObjectMethodCompletionProposal(ImageRegistry imageRegistry, ExpressionObjectMethod method, int charsEntered, int cursorPosition) {
+	ExpressionObjectMethodCompletionProposal(ImageRegistry imageRegistry, ExpressionObjectMethod method,
+		Closure<String> documentationLoader, int charsEntered, int cursorPosition) {
 
-		super(method, method.getFullName().substring(charsEntered), cursorPosition,
+		super(documentationLoader, method.getFullName(), cursorPosition - charsEntered, cursorPosition,
 			imageRegistry.get(ContentAssistPlugin.IMAGE_EXPRESSION_OBJECT_METHOD))
 
 		displayString = method.name
@@ -54,12 +59,13 @@ class ExpressionObjectMethodCompletionProposal extends AbstractCompletionProposa
 	@Override
 	void apply(IDocument document, char trigger, int offset) {
 
-		document.replace(offset, 0, replacementString.substring(offset - cursorPosition) + (!javaBeanProperty ? '()' : ''))
+		document.replace(replacementOffset, offset - replacementOffset,
+			replacementString + (!javaBeanProperty ? '()' : ''))
 	}
 
 	@Override
 	Point getSelection(IDocument document) {
 
-		return new Point(cursorPosition + replacementString.length() + (!javaBeanProperty ? 1 : 0), 0)
+		return new Point(replacementOffset + replacementString.length() + (!javaBeanProperty ? 1 : 0), 0)
 	}
 }
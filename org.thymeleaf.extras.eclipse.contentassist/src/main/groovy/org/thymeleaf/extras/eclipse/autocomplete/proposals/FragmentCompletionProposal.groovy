@@ -0,0 +1,69 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.autocomplete.proposals
+
+import org.eclipse.jface.resource.ImageRegistry
+import org.eclipse.jface.text.IDocument
+import org.eclipse.swt.graphics.Point
+import org.thymeleaf.extras.eclipse.ContentAssistPlugin
+
+/**
+ * A completion proposal for a template name or template fragment in a fragment
+ * expression, eg: the value of a {@code th:replace} attribute.
+ * 
+ * @author Emanuel Rabina
+ */
+class FragmentCompletionProposal extends AbstractCompletionProposal {
+
+	final String displayString
+
+	/**
+	 * Constructor, set the template or fragment information.
+	 * 
+	 * @param imageRegistry
+	 * @param replacementString
+	 *   The template name or fragment signature to enter.
+	 * @param displayString
+	 * @param documentationLoader
+	 *   Closure returning the rendered documentation for the proposed item,
+	 *   called only once the documentation is asked for.
+	 * @param charsEntered
+	 *   How much has already been typed for the proposal, which the proposal
+	 *   replaces when selected.
+	 * @param cursorPosition
+	 */
+	FragmentCompletionProposal(ImageRegistry imageRegistry, String replacementString, String displayString,
+		Closure<String> documentationLoader, int charsEntered, int cursorPosition) {
+
+		super(documentationLoader, replacementString, cursorPosition - charsEntered, cursorPosition,
+			imageRegistry.get(ContentAssistPlugin.IMAGE_THYMELEAF))
+
+		this.displayString = displayString
+	}
+
+	@Override
+	void apply(IDocument document, char trigger, int offset) {
+
+		document.replace(replacementOffset, offset - replacementOffset, replacementString)
+	}
+
+	@Override
+	Point getSelection(IDocument document) {
+
+		return new Point(replacementOffset + replacementString.length(), 0)
+	}
+}
@@ -0,0 +1,255 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.dialect
+
+import org.eclipse.core.runtime.IPath
+import org.eclipse.core.runtime.Path
+import org.eclipse.jdt.core.IPackageFragmentRoot
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import org.thymeleaf.extras.eclipse.ContentAssistPlugin
+
+import jakarta.inject.Named
+import java.util.concurrent.ConcurrentHashMap
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.security.MessageDigest
+
+/**
+ * An on-disk record of the dialect help files found in archive package fragment
+ * roots (ie: jars), kept in the plugin's state location so that it survives
+ * Eclipse restarts.  Each jar gets its own entry, saved with the size and
+ * timestamp of the jar at the time it was scanned, so that an unchanged jar
+ * can skip a rescan of its contents, including the common case of a jar that
+ * has no dialect files at all.
+ * <p>
+ * The raw XML of the dialect files is stored rather than the processed dialect
+ * items, as the processing depends on the classpath of the project doing the
+ * loading.
+ * <p>
+ * Jars without any dialect files are also remembered in memory, so that the
+ * many projects that share the same dependencies don't even need to go to disk
+ * to know to skip them.
+ * 
+ * @author Emanuel Rabina
+ */
+@Named
+class DialectIndexStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(DialectIndexStore)
+
+	private static final int FORMAT_VERSION = 2
+
+	private final Set<String> archivesWithoutDialectFiles = ConcurrentHashMap.newKeySet()
+	private final IPath stateLocation
+
+	@Lazy
+	private File storeDirectory = { ->
+		def location = stateLocation ?: ContentAssistPlugin.default?.stateLocation
+		if (location) {
+			def directory = location.append('dialect-index').toFile()
+			directory.mkdirs()
+			return directory
+		}
+		return null
+	}()
+
+	/**
+	 * Constructor, keep the store in the plugin's state location.
+	 */
+	DialectIndexStore() {
+
+		this(null)
+	}
+
+	/**
+	 * Constructor, keep the store under the given location.
+	 * 
+	 * @param stateLocation
+	 *   Directory to keep the store in, or <tt>null</tt> to use the plugin's
+	 *   state location.
+	 */
+	DialectIndexStore(IPath stateLocation) {
+
+		this.stateLocation = stateLocation
+	}
+
+	/**
+	 * Returns the file on the file system backing an archive package fragment
+	 * root.
+	 * 
+	 * @param packageFragmentRoot
+	 * @return The archive file, or <tt>null</tt> if the root isn't backed by one.
+	 */
+	static File archiveFile(IPackageFragmentRoot packageFragmentRoot) {
+
+		def location = packageFragmentRoot.resource ? packageFragmentRoot.resource.location : packageFragmentRoot.path
+		def file = location?.toFile()
+		return file?.file ? file : null
+	}
+
+	/**
+	 * Returns a string that identifies the current version of an archive package
+	 * fragment root, so that dialects from the same jar can be recognized and
+	 * shared across projects.
+	 * 
+	 * @param packageFragmentRoot
+	 * @return Identity of the archive, or <tt>null</tt> if the root isn't backed
+	 *   by an archive file.
+	 */
+	static String archiveIdentity(IPackageFragmentRoot packageFragmentRoot) {
+
+		if (!packageFragmentRoot.archive) {
+			return null
+		}
+		def archiveFile = archiveFile(packageFragmentRoot)
+		return archiveFile ?
+			"${archiveKey(packageFragmentRoot)}:${archiveFile.length()}:${archiveFile.lastModified()}" :
+			null
+	}
+
+	/**
+	 * Returns the name that identifies a package fragment root, which includes
+	 * the element name for the case of several roots sharing the same archive
+	 * (eg: the modules of a Java runtime image).
+	 * 
+	 * @param packageFragmentRoot
+	 * @return
+	 */
+	private static String archiveKey(IPackageFragmentRoot packageFragmentRoot) {
+
+		return "${packageFragmentRoot.path}!${packageFragmentRoot.elementName}"
+	}
+
+	/**
+	 * Return the file in the store for a package fragment root.
+	 * 
+	 * @param archiveKey
+	 * @return
+	 */
+	private File indexFile(String archiveKey) {
+
+		def digest = MessageDigest.getInstance('SHA-1').digest(archiveKey.getBytes('UTF-8'))
+		return new File(storeDirectory, "${digest.encodeHex()}.idx")
+	}
+
+	/**
+	 * Load the dialect files that were found in a package fragment root the last
+	 * time it was scanned.
+	 * 
+	 * @param packageFragmentRoot
+	 * @return Map of dialect file paths to their XML contents, which will be
+	 *   empty if the root had no dialect files, or <tt>null</tt> if the root has
+	 *   changed or hasn't been scanned before and so needs to be scanned again.
+	 */
+	Map<IPath,byte[]> load(IPackageFragmentRoot packageFragmentRoot) {
+
+		def archiveIdentity = archiveIdentity(packageFragmentRoot)
+		if (!archiveIdentity) {
+			return null
+		}
+		if (archivesWithoutDialectFiles.contains(archiveIdentity)) {
+			return [:]
+		}
+		if (!storeDirectory) {
+			return null
+		}
+		def archiveFile = archiveFile(packageFragmentRoot)
+		def archiveKey = archiveKey(packageFragmentRoot)
+		def indexFile = indexFile(archiveKey)
+		if (!indexFile.file) {
+			return null
+		}
+
+		try {
+			return new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile))).withStream { input ->
+				if (input.readInt() != FORMAT_VERSION || input.readUTF() != archiveKey ||
+					input.readLong() != archiveFile.length() || input.readLong() != archiveFile.lastModified()) {
+					return null
+				}
+				def dialectFiles = new LinkedHashMap<IPath,byte[]>()
+				def dialectFileCount = input.readInt()
+				dialectFileCount.times {
+					def path = input.readUTF()
+					def contents = new byte[input.readInt()]
+					input.readFully(contents)
+					dialectFiles[path ? new Path(path) : null] = contents
+				}
+				if (!dialectFiles) {
+					archivesWithoutDialectFiles << archiveIdentity
+				}
+				return dialectFiles
+			}
+		}
+		catch (IOException ex) {
+			logger.warn("Unable to read dialect index for ${archiveKey}, will rescan", ex)
+			return null
+		}
+	}
+
+	/**
+	 * Save the dialect files that were found in a package fragment root so that
+	 * they can be loaded on subsequent scans for as long as the root remains
+	 * unchanged.
+	 * 
+	 * @param packageFragmentRoot
+	 * @param dialectFiles
+	 *   Map of dialect file paths to their XML contents, which can be empty to
+	 *   record that the root had no dialect files.
+	 */
+	void save(IPackageFragmentRoot packageFragmentRoot, Map<IPath,byte[]> dialectFiles) {
+
+		def archiveIdentity = archiveIdentity(packageFragmentRoot)
+		if (!archiveIdentity) {
+			return
+		}
+		if (!dialectFiles) {
+			archivesWithoutDialectFiles << archiveIdentity
+		}
+		if (!storeDirectory) {
+			return
+		}
+		def archiveFile = archiveFile(packageFragmentRoot)
+		def archiveKey = archiveKey(packageFragmentRoot)
+		def indexFile = indexFile(archiveKey)
+
+		// Write to a temporary file first so that a concurrent load for the same
+		// root never sees a half-written index
+		File tempFile = null
+		try {
+			tempFile = File.createTempFile(indexFile.name, '.tmp', storeDirectory)
+			new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))).withStream { output ->
+				output.writeInt(FORMAT_VERSION)
+				output.writeUTF(archiveKey)
+				output.writeLong(archiveFile.length())
+				output.writeLong(archiveFile.lastModified())
+				output.writeInt(dialectFiles.size())
+				dialectFiles.each { path, contents ->
+					output.writeUTF(path?.toString() ?: '')
+					output.writeInt(contents.length)
+					output.write(contents)
+				}
+			}
+			Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE)
+		}
+		catch (IOException ex) {
+			logger.warn("Unable to save dialect index for ${archiveKey}", ex)
+			tempFile?.delete()
+		}
+	}
+}
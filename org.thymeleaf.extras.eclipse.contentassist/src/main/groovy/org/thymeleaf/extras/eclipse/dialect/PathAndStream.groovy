@@ -30,4 +30,11 @@ class PathAndStream {
 
 	final IPath path
 	final InputStream stream
+
+	/**
+	 * Identifies this exact version of the dialect resource across projects, for
+	 * resources that come from a jar, or <tt>null</tt> for resources in the
+	 * workspace that could change at any time.
+	 */
+	final String identity
 }
@@ -18,69 +18,187 @@ package org.thymeleaf.extras.eclipse.dialect
 
 import org.eclipse.core.resources.IFile
 import org.eclipse.core.resources.IStorage
+import org.eclipse.core.runtime.IPath
+import org.eclipse.core.runtime.IProgressMonitor
+import org.eclipse.core.runtime.OperationCanceledException
+import org.eclipse.core.runtime.SubMonitor
 import org.eclipse.jdt.core.IJarEntryResource
 import org.eclipse.jdt.core.IJavaProject
+import org.eclipse.jdt.core.IPackageFragmentRoot
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
-import org.xml.sax.Attributes
-import org.xml.sax.helpers.DefaultHandler
+import org.thymeleaf.extras.eclipse.resources.ScanExecutor
 
 import groovy.transform.TupleConstructor
 import java.util.concurrent.Callable
-import java.util.concurrent.ExecutorService
-import java.util.concurrent.Executors
 import java.util.concurrent.Future
-import javax.xml.parsers.SAXParserFactory 
+import java.util.zip.ZipFile
+import javax.xml.stream.XMLInputFactory
+import javax.xml.stream.XMLStreamConstants
+import javax.xml.stream.XMLStreamException
+
 /**
  * Locates Thymeleaf dialect XML help files from a project's dependencies.
+ * Progress is reported to, and the scan can be cancelled through, the given
+ * progress monitor.  Jars that haven't changed since they were last scanned
+ * have their results read from the {@link DialectIndexStore} instead.
+ * <p>
+ * Each candidate XML file is opened just the once: only as much of the file as
+ * is needed to find the namespace of the root element is read to check if it's
+ * a dialect file, and if it is then the rest of the same stream is read for
+ * the contents that are passed on to the dialect loader.
+ * <p>
+ * Jars not yet in the dialect index first have their list of entries checked,
+ * so that only packages with XML files in them are searched, and jars without
+ * any XML files are skipped entirely.
+ * <p>
+ * The search can be narrowed to just some of the project's package fragment
+ * roots, eg: those that were just added to the classpath.
  * 
  * @author Emanuel Rabina
  */
 @TupleConstructor(defaults = false)
 class ProjectDependencyDialectLocator implements DialectLocator {
 
-	private static final String XML_FEATURE_LOAD_DTD_GRAMMAR =
-			"http://apache.org/xml/features/nonvalidating/load-dtd-grammar"
-	private static final String XML_FEATURE_LOAD_EXTERNAL_DTD =
-			"http://apache.org/xml/features/nonvalidating/load-external-dtd"
-
 	private static final String DIALECT_EXTRAS_NAMESPACE = "http://www.thymeleaf.org/extras/dialect"
 
+	// How far into a file the root element can be and still be found without
+	// having to reopen the file
+	private static final int ROOT_ELEMENT_READ_LIMIT = 65536
+
 	private static final Logger logger = LoggerFactory.getLogger(ProjectDependencyDialectLocator)
 
-	private static final SAXParserFactory saxParserFactory
+	private static final XMLInputFactory xmlInputFactory
 	static {
-		saxParserFactory = SAXParserFactory.newInstance()
-		saxParserFactory.setNamespaceAware(true)
-		saxParserFactory.setFeature(XML_FEATURE_LOAD_DTD_GRAMMAR, false)
-		saxParserFactory.setFeature(XML_FEATURE_LOAD_EXTERNAL_DTD, false)
+		xmlInputFactory = XMLInputFactory.newFactory()
+		xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true)
+		xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false)
+		xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false)
 	}
 
 	final IJavaProject project
+	final IProgressMonitor monitor
+	final DialectIndexStore dialectIndexStore
+	final ScanExecutor scanExecutor
+	final List<IPackageFragmentRoot> packageFragmentRoots
 
 	/**
-	 * Returns whether or not the given resource is a Thymeleaf dialect help XML
-	 * file.
+	 * Returns a path for a dialect file that is unique across the workspace.
+	 * Files in jars only have a path within the jar, so those are made relative
+	 * to the path of the jar to avoid them clashing with same-named files in
+	 * other jars.
+	 * 
+	 * @param packageFragmentRoot
+	 * @param dialectHelpXmlFile
+	 * @return
+	 */
+	private static IPath dialectFilePath(IPackageFragmentRoot packageFragmentRoot, IStorage dialectHelpXmlFile) {
+
+		def fullPath = dialectHelpXmlFile.fullPath
+		return dialectHelpXmlFile instanceof IJarEntryResource && fullPath ?
+			packageFragmentRoot.path.append(fullPath) :
+			fullPath
+	}
+
+	/**
+	 * Returns the contents of the given resource if it is a Thymeleaf dialect
+	 * help XML file.
 	 * 
 	 * @param resource
-	 * @return <tt>true</tt> if the resource is an XML file in the
-	 * 		   <tt>http://www.thymeleaf.org/extras/dialect</tt> namespace.
+	 * @return The bytes of the resource if it is an XML file in the
+	 * 		   <tt>http://www.thymeleaf.org/extras/dialect</tt> namespace, or
+	 * 		   <tt>null</tt> otherwise.
 	 */
-	private static boolean isDialectHelpXmlFile(IStorage resource) {
+	private static byte[] readDialectHelpXmlFile(IStorage resource) {
 
-		// TODO: This method consumes the stream, so when we need it later it can
-		//       lead to EOF errors.  Find a way to maybe store the results of a
-		//       read stream so we don't encounter that problem.
 		if (((resource instanceof IJarEntryResource && resource.file) ||
 			resource instanceof IFile) && resource.name.endsWith('.xml')) {
 			return resource.contents.withStream { resourceStream ->
-				def saxParser = saxParserFactory.newSAXParser()
-				def handler = new NamespaceHandler()
-				saxParser.parse(resourceStream, handler)
-				return handler.namespace == DIALECT_EXTRAS_NAMESPACE
+				def bufferedStream = new BufferedInputStream(resourceStream, 8192)
+				bufferedStream.mark(ROOT_ELEMENT_READ_LIMIT)
+				if (rootElementNamespace(bufferedStream, resource) != DIALECT_EXTRAS_NAMESPACE) {
+					return null
+				}
+				try {
+					bufferedStream.reset()
+					return bufferedStream.bytes
+				}
+				catch (IOException ignored) {
+					// Root element was further in than the read limit, so start over
+					return resource.contents.withStream { stream ->
+						return stream.bytes
+					}
+				}
 			}
 		}
-		return false
+		return null
+	}
+
+	/**
+	 * Reads the given XML stream only up to the start of the root element,
+	 * returning the namespace of that element.
+	 * 
+	 * @param stream
+	 * @param resource
+	 *   The resource the stream is from, for logging.
+	 * @return The root element namespace, or <tt>null</tt> if the root element
+	 *   has no namespace or the stream isn't well-formed XML.
+	 */
+	private static String rootElementNamespace(InputStream stream, IStorage resource) {
+
+		def xmlStreamReader = xmlInputFactory.createXMLStreamReader(stream)
+		try {
+			while (xmlStreamReader.hasNext()) {
+				if (xmlStreamReader.next() == XMLStreamConstants.START_ELEMENT) {
+					return xmlStreamReader.namespaceURI
+				}
+			}
+		}
+		catch (XMLStreamException ex) {
+			logger.debug("Unable to read ${resource.name} as XML: ${ex.message}")
+		}
+		finally {
+			xmlStreamReader.close()
+		}
+		return null
+	}
+
+	/**
+	 * Returns the names of the packages that contain XML files in a jar, found
+	 * from the jar's central directory alone, without having to go through
+	 * JDT's model of the jar.
+	 * 
+	 * @param packageFragmentRoot
+	 * @return Set of package names with XML files in them, using the empty
+	 *   string for the default package, or <tt>null</tt> if the root isn't a
+	 *   jar that can be read this way.
+	 */
+	private static Set<String> xmlFilePackageNames(IPackageFragmentRoot packageFragmentRoot) {
+
+		if (!packageFragmentRoot.archive) {
+			return null
+		}
+		def archiveFile = DialectIndexStore.archiveFile(packageFragmentRoot)
+		if (!archiveFile || archiveFile.name != packageFragmentRoot.elementName) {
+			return null
+		}
+		try {
+			return new ZipFile(archiveFile).withCloseable { zipFile ->
+				def packageNames = new HashSet<String>()
+				zipFile.entries().each { zipEntry ->
+					def entryName = zipEntry.name
+					if (!zipEntry.directory && entryName.endsWith('.xml')) {
+						def lastSlash = entryName.lastIndexOf('/')
+						packageNames << (lastSlash == -1 ? '' : entryName.substring(0, lastSlash).replace('/', '.'))
+					}
+				}
+				return packageNames
+			}
+		}
+		catch (IOException ex) {
+			logger.debug("Unable to read entries of ${archiveFile}, falling back to a full scan: ${ex.message}")
+			return null
+		}
 	}
 
 	/**
@@ -95,55 +213,82 @@ class ProjectDependencyDialectLocator implements DialectLocator {
 
 			// Multi-threaded search for dialect files - there are a lot of package
 			// fragments to get through, and the I/O namespace check is a blocker.
-			def executorService = Executors.newFixedThreadPool(Runtime.runtime.availableProcessors())
-			return executorService.executeAndShutdown { ExecutorService executor ->
-
-				def scannerTasks = new ArrayList<Future<IStorage>>()
-				project.allPackageFragmentRoots.each { packageFragmentRoot ->
-					packageFragmentRoot.children.each { packageFragment ->
-						scannerTasks << executor.submit({ ->
-							return packageFragment.nonJavaResources.findResult { fileOrJarEntry ->
-								if (isDialectHelpXmlFile(fileOrJarEntry)) {
-									logger.info("Help file found: ${fileOrJarEntry.name}")
-									return fileOrJarEntry
-								}
-								return null
+			def rootsToScan = packageFragmentRoots != null ? packageFragmentRoots : project.allPackageFragmentRoots
+			def rootScans = rootsToScan.collect { packageFragmentRoot ->
+				def storedDialectFiles = dialectIndexStore?.load(packageFragmentRoot)
+				if (storedDialectFiles != null) {
+					return new RootScan(packageFragmentRoot, storedDialectFiles, [])
+				}
+				def xmlFilePackageNames = xmlFilePackageNames(packageFragmentRoot)
+				def packageFragments = packageFragmentRoot.children.findAll { packageFragment ->
+					return xmlFilePackageNames == null || xmlFilePackageNames.contains(packageFragment.elementName)
+				}
+				return new RootScan(packageFragmentRoot, null, packageFragments.collect { packageFragment ->
+					return scanExecutor.submit(monitor, { ->
+						return packageFragment.nonJavaResources.findResult { fileOrJarEntry ->
+							def contents = readDialectHelpXmlFile(fileOrJarEntry)
+							if (contents != null) {
+								logger.info("Help file found: ${fileOrJarEntry.name}")
+								return new Tuple2<IPath,byte[]>(dialectFilePath(packageFragmentRoot, fileOrJarEntry), contents)
+							}
+							return null
+						}
+					} as Callable<Tuple2<IPath,byte[]>>)
+				})
+			}
+
+			def subMonitor = SubMonitor.convert(monitor, 'Scanning for dialects',
+				rootScans.sum(0) { rootScan -> rootScan.scannerTasks.size() } as int)
+			try {
+				return rootScans.inject([]) { acc, rootScan ->
+					def packageFragmentRoot = rootScan.packageFragmentRoot
+					def dialectFiles = rootScan.storedDialectFiles
+					if (dialectFiles == null) {
+						dialectFiles = new LinkedHashMap<IPath,byte[]>()
+						rootScan.scannerTasks.each { scannerTask ->
+							subMonitor.split(1)
+							def dialectHelpXmlFile = scannerTask.get()
+							if (dialectHelpXmlFile) {
+								dialectFiles[dialectHelpXmlFile.v1] = dialectHelpXmlFile.v2
 							}
-						} as Callable)
+						}
+
+						// Tasks skipped because of a cancellation would leave the results
+						// incomplete, so make sure they're never saved
+						if (monitor?.canceled) {
+							throw new OperationCanceledException()
+						}
+						dialectIndexStore?.save(packageFragmentRoot, dialectFiles)
 					}
-				}
-				return scannerTasks.inject([]) { acc, scannerTask ->
-					def dialectHelpXmlFile = scannerTask.get()
-					if (dialectHelpXmlFile) {
-						acc << new PathAndStream(dialectHelpXmlFile.fullPath, dialectHelpXmlFile.contents)
+					def archiveIdentity = DialectIndexStore.archiveIdentity(packageFragmentRoot)
+					dialectFiles.each { path, contents ->
+						acc << new PathAndStream(path, new ByteArrayInputStream(contents),
+							archiveIdentity ? "${archiveIdentity}!${path}" : null)
 					}
 					return acc
 				}
 			}
+			catch (OperationCanceledException ex) {
+				rootScans.each { rootScan ->
+					rootScan.scannerTasks*.cancel(false)
+				}
+				throw ex
+			}
+			finally {
+				logger.debug("Scan executor ${scanExecutor.statistics}")
+			}
 		}
 	}
 
 	/**
-	 * Basic SAX handler that cares only about the document namespace.
+	 * The dialect files of a single package fragment root, either already known
+	 * from the dialect index, or still being scanned for.
 	 */
-	private static class NamespaceHandler extends DefaultHandler {
-
-		private String namespace
-
-		/**
-		 * Saves the document namespace, then does nothing after that.
-		 * 
-		 * @param uri
-		 * @param localName
-		 * @param qName
-		 * @param attributes
-		 */
-		@Override
-		void startElement(String uri, String localName, String qName, Attributes attributes) {
-
-			if (namespace == null) {
-				namespace = uri
-			}
-		}
+	@TupleConstructor(defaults = false)
+	private static class RootScan {
+
+		final IPackageFragmentRoot packageFragmentRoot
+		final Map<IPath,byte[]> storedDialectFiles
+		final List<Future<Tuple2<IPath,byte[]>>> scannerTasks
 	}
 }
@@ -20,7 +20,6 @@ import org.eclipse.core.resources.IWorkspace
 import org.eclipse.core.runtime.IPath
 
 import groovy.transform.TupleConstructor
-import jakarta.inject.Inject
 
 /**
  * A dialect locator target at a single, already-known, dialect file.
@@ -30,9 +29,7 @@ import jakarta.inject.Inject
 @TupleConstructor(defaults = false)
 class SingleFileDialectLocator implements DialectLocator {
 
-	@Inject
-	private final IWorkspace workspace
-
+	final IWorkspace workspace
 	final IPath dialectFilePath
 
 	/**
@@ -42,7 +39,7 @@ class SingleFileDialectLocator implements DialectLocator {
 	List<PathAndStream> locate() {
 
 		return [
-			new PathAndStream(dialectFilePath, workspace.root.getFile(dialectFilePath).contents)
+			new PathAndStream(dialectFilePath, workspace.root.getFile(dialectFilePath).contents, null)
 		]
 	}
 }
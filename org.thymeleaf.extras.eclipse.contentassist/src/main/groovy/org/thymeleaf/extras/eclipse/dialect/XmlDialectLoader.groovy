@@ -41,15 +41,26 @@ class XmlDialectLoader implements ResourceLoader<PathAndDialect, DialectLocator>
 	List<PathAndDialect> load(DialectLocator locator) {
 
 		return locator.locate().collect { pathAndStream ->
-			return pathAndStream.stream.withStream { stream ->
-				// Link processors and expression objects/methods with their dialect
-				// TODO: Unnecessary with the XML slurper?
-				def dialect = xmlReader.read(stream)
-				dialect.dialectItems.each { dialectItem ->
-					dialectItem.dialect = dialect
-				}
-				return new PathAndDialect(pathAndStream.path, dialect)
+			return new PathAndDialect(pathAndStream.path, loadDialect(pathAndStream))
+		}
+	}
+
+	/**
+	 * Load a single dialect from an already-located dialect resource.
+	 * 
+	 * @param pathAndStream
+	 * @return The dialect in the resource.
+	 */
+	Dialect loadDialect(PathAndStream pathAndStream) {
+
+		return pathAndStream.stream.withStream { stream ->
+			// Link processors and expression objects/methods with their dialect
+			// TODO: Unnecessary with the XML slurper?
+			def dialect = xmlReader.read(stream)
+			dialect.dialectItems.each { dialectItem ->
+				dialectItem.dialect = dialect
 			}
+			return dialect
 		}
 	}
 }
@@ -0,0 +1,143 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.thymeleaf.extras.eclipse.dialect.cache
+
+import org.thymeleaf.extras.eclipse.dialect.xml.AttributeRestrictions
+import org.w3c.dom.NamedNodeMap
+
+import groovy.transform.TupleConstructor
+
+/**
+ * The restrictions on where an attribute processor can be used, compiled from
+ * the strings of an {@code <restrictions>} element when a dialect is loaded so
+ * that they don't have to be parsed again with every content assist request.
+ * 
+ * @author Emanuel Rabina
+ */
+class CompiledAttributeRestrictions {
+
+	/**
+	 * Tags the processor can appear in, or <tt>null</tt> if it can appear in
+	 * any tag not in {@link #excludedTags}.
+	 */
+	final Set<String> allowedTags
+
+	/**
+	 * Tags the processor cannot appear in.
+	 */
+	final Set<String> excludedTags
+
+	private final List<AttributeCondition> attributeConditions
+
+	/**
+	 * Constructor, compile the given restrictions.
+	 * 
+	 * @param restrictions
+	 */
+	CompiledAttributeRestrictions(AttributeRestrictions restrictions) {
+
+		def allowedTags = new HashSet<String>()
+		def excludedTags = new HashSet<String>()
+		if (restrictions.isSetTags()) {
+			restrictions.tags.each { tag ->
+				if (tag.startsWith('-')) {
+					excludedTags << tag.substring(1)
+				}
+				else {
+					allowedTags << tag
+				}
+			}
+		}
+		this.allowedTags = allowedTags ? Collections.unmodifiableSet(allowedTags) : null
+		this.excludedTags = Collections.unmodifiableSet(excludedTags)
+
+		attributeConditions = restrictions.isSetAttributes() ?
+			restrictions.attributes.collect { attribute -> AttributeCondition.compile(attribute) } :
+			[]
+	}
+
+	/**
+	 * Return whether the processor can be used alongside the given attributes.
+	 * 
+	 * @param existingAttributes
+	 * @return <tt>true</tt> if all of the attribute restrictions are satisfied.
+	 */
+	boolean allowsAttributes(NamedNodeMap existingAttributes) {
+
+		for (def attributeCondition: attributeConditions) {
+			if (!attributeCondition.matches(existingAttributes)) {
+				return false
+			}
+		}
+		return true
+	}
+
+	/**
+	 * Return whether the processor can be used in the given tag.
+	 * 
+	 * @param tagName
+	 * @return <tt>true</tt> if the tag restrictions allow the tag.
+	 */
+	boolean allowsTag(String tagName) {
+
+		return !excludedTags.contains(tagName) && (allowedTags == null || allowedTags.contains(tagName))
+	}
+
+	/**
+	 * A single attribute restriction, of the form {@code name},
+	 * {@code name=value}, {@code -name}, or {@code -name=value}.
+	 */
+	@TupleConstructor(defaults = false)
+	private static class AttributeCondition {
+
+		final String name
+		final String value
+		final boolean negate
+
+		/**
+		 * Parse an attribute restriction string into a condition.
+		 * 
+		 * @param restriction
+		 * @return
+		 */
+		static AttributeCondition compile(String restriction) {
+
+			def negate = restriction.startsWith('-')
+			def start = negate ? 1 : 0
+			def indexOfEq = restriction.indexOf('=')
+			return indexOfEq != -1 ?
+				new AttributeCondition(restriction.substring(start, indexOfEq), restriction.substring(indexOfEq + 1), negate) :
+				new AttributeCondition(restriction.substring(start), null, negate)
+		}
+
+		/**
+		 * Check the condition against the attributes of an element.
+		 * 
+		 * @param existingAttributes
+		 * @return <tt>true</tt> if the attribute is present (and has the
+		 *   expected value if there is one) and the condition is not negated, or
+		 *   it isn't present and the condition is negated.
+		 */
+		boolean matches(NamedNodeMap existingAttributes) {
+
+			def attribute = existingAttributes?.getNamedItem(name)
+			def present = attribute && (value == null || attribute.nodeValue == value)
+			return negate ? !present : present
+		}
+	}
+}
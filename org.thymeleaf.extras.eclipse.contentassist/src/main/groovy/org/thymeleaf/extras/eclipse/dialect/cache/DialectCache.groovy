@@ -16,33 +16,70 @@
 
 package org.thymeleaf.extras.eclipse.dialect.cache
 
+import org.eclipse.core.resources.IProject
+import org.eclipse.core.resources.IResourceChangeEvent
+import org.eclipse.core.resources.IResourceChangeListener
+import org.eclipse.core.resources.IResourceDelta
 import org.eclipse.core.resources.IWorkspace
+import org.eclipse.core.runtime.IStatus
+import org.eclipse.core.runtime.jobs.IJobChangeEvent
+import org.eclipse.core.runtime.jobs.Job
+import org.eclipse.core.runtime.jobs.JobChangeAdapter
+import org.eclipse.jdt.core.ElementChangedEvent
+import org.eclipse.jdt.core.IElementChangedListener
+import org.eclipse.jdt.core.IJavaElementDelta
 import org.eclipse.jdt.core.IJavaProject
-import org.thymeleaf.extras.eclipse.dialect.ProjectDependencyDialectLocator
+import org.eclipse.jdt.core.IPackageFragmentRoot
+import org.eclipse.jdt.core.JavaCore
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import org.thymeleaf.extras.eclipse.dialect.DialectIndexStore
 import org.thymeleaf.extras.eclipse.dialect.XmlDialectLoader
 import org.thymeleaf.extras.eclipse.dialect.xml.AttributeProcessor
 import org.thymeleaf.extras.eclipse.dialect.xml.Dialect
 import org.thymeleaf.extras.eclipse.dialect.xml.DialectItem
+import org.thymeleaf.extras.eclipse.dialect.xml.Documentation
 import org.thymeleaf.extras.eclipse.dialect.xml.ElementProcessor
 import org.thymeleaf.extras.eclipse.dialect.xml.ExpressionObjectMethod
 import org.thymeleaf.extras.eclipse.dialect.xml.Processor
+import org.thymeleaf.extras.eclipse.resources.ScanExecutor
+import org.w3c.dom.NamedNodeMap
 import static org.eclipse.core.resources.IResourceChangeEvent.*
+import static org.eclipse.jdt.core.IJavaElementDelta.*
 
 import jakarta.annotation.PostConstruct
 import jakarta.annotation.PreDestroy
 import jakarta.inject.Inject
 import jakarta.inject.Named
+import java.util.concurrent.ConcurrentHashMap
 import javax.xml.namespace.QName
 
 /**
  * A basic in-memory store of all known Thymeleaf dialects and their processors
  * and expression object methods.
+ * <p>
+ * Dialects are loaded in the background by a {@link DialectLoadJob}, started
+ * when a project is opened, given the Thymeleaf nature, has an HTML file opened
+ * in an editor, or is first queried.  Queries never wait on that job, instead
+ * returning results from whatever dialects have been loaded so far.
+ * <p>
+ * Once loaded, changes to a project's classpath are applied incrementally:
+ * only jars and source folders added to the classpath are scanned, and the
+ * dialects of those removed from it are dropped, leaving the rest of the
+ * project's dialects as they are.
+ * <p>
+ * Each query first works out which of the project's dialects are visible at
+ * the current point in the document, either through the Thymeleaf nature or
+ * by being in one of the namespaces declared there, so that matching items
+ * only need to be checked for belonging to one of those dialects.
  * 
  * @author Emanuel Rabina
  */
 @Named
 class DialectCache {
 
+	private static final Logger logger = LoggerFactory.getLogger(DialectCache)
+
 	@Inject
 	private final IWorkspace workspace
 	@Inject
@@ -52,7 +89,57 @@ class DialectCache {
 	@Inject
 	private final DialectChangeListener dialectChangeListener
 	@Inject
-	private final DialectItemProcessor dialectItemProcessor
+	private final DialectIndexStore dialectIndexStore
+	@Inject
+	private final ScanExecutor scanExecutor
+	@Inject
+	private final JavadocCache javadocCache
+	@Inject
+	private final ExpressionObjectMethodCache expressionObjectMethodCache
+	@Inject
+	private final DocumentationRenderer documentationRenderer
+
+	private final ConcurrentHashMap<IJavaProject,DialectLoadJob> dialectLoadJobs = new ConcurrentHashMap<>()
+
+	/**
+	 * Start loading dialects for projects as they are opened, and forget about
+	 * them when they are closed so that they are loaded fresh if reopened.
+	 */
+	private final IResourceChangeListener projectChangeListener = { IResourceChangeEvent event ->
+		switch (event.type) {
+		case POST_CHANGE:
+			event.delta?.affectedChildren?.each { projectDelta ->
+				def project = (IProject)projectDelta.resource
+				if (projectDelta.flags & IResourceDelta.OPEN && project.open && project.hasNature(JavaCore.NATURE_ID)) {
+					loadDialectsFromProject(JavaCore.create(project))
+				}
+			}
+			break
+		case PRE_CLOSE:
+		case PRE_DELETE:
+			def javaProject = JavaCore.create((IProject)event.resource)
+			dialectLoadJobs.remove(javaProject)
+			Job.jobManager.find(DialectLoadJob).each { job ->
+				if (((DialectLoadJob)job).project == javaProject) {
+					job.cancel()
+				}
+			}
+			dialectTree.removeProject(javaProject)
+			break
+		}
+	} as IResourceChangeListener
+
+	/**
+	 * Apply classpath changes to the dialects of projects that have already been
+	 * loaded.
+	 */
+	private final IElementChangedListener classpathChangeListener = { ElementChangedEvent event ->
+		event.delta.affectedChildren.each { projectDelta ->
+			if (projectDelta.element instanceof IJavaProject) {
+				updateDialectsFromClasspathChanges((IJavaProject)projectDelta.element, projectDelta)
+			}
+		}
+	} as IElementChangedListener
 
 	/**
 	 * Initialize the cache.
@@ -61,6 +148,8 @@ class DialectCache {
 	void init() {
 
 		workspace.addResourceChangeListener(dialectChangeListener, POST_CHANGE | PRE_CLOSE | PRE_DELETE)
+		workspace.addResourceChangeListener(projectChangeListener, POST_CHANGE | PRE_CLOSE | PRE_DELETE)
+		JavaCore.addElementChangedListener(classpathChangeListener, ElementChangedEvent.POST_CHANGE)
 	}
 
 	/**
@@ -70,7 +159,10 @@ class DialectCache {
 	@PreDestroy
 	void close() {
 
+		JavaCore.removeElementChangedListener(classpathChangeListener)
+		workspace.removeResourceChangeListener(projectChangeListener)
 		workspace.removeResourceChangeListener(dialectChangeListener)
+		Job.jobManager.cancel(DialectLoadJob)
 	}
 
 	/**
@@ -90,32 +182,6 @@ class DialectCache {
 		}
 	}
 
-	/**
-	 * Checks if the expression object method matches the given name.
-	 * 
-	 * @param method
-	 * @param name
-	 * @return <tt>true</tt> if the name matches the expression object name.
-	 */
-	private boolean expressionObjectMethodMatchesName(ExpressionObjectMethod method, String name) {
-
-		return name == method.fullName
-	}
-
-	/**
-	 * Checks if the expression object method name matches the given
-	 * start-of-string pattern.
-	 * 
-	 * @param method
-	 * @param pattern
-	 * @return <tt>true</tt> if the pattern matches against the expression
-	 * 		   object name.
-	 */
-	private boolean expressionObjectMethodMatchesPattern(ExpressionObjectMethod method, String pattern) {
-
-		return pattern && method.fullName.startsWith(pattern)
-	}
-
 	/**
 	 * Retrieve the attribute processor in the given project, with the full
 	 * matching name.
@@ -129,49 +195,91 @@ class DialectCache {
 
 		loadDialectsFromProject(project)
 
-		return dialectTree.getAttributeProcessorsForProject(project).find { processor ->
+		return dialectTree.findAttributeProcessorsByName(project, processorName).find { processor ->
 			return processor.fullName == processorName
 		}
 	}
 
 	/**
-	 * Retrieve all attribute processors for the given project, whose names
-	 * match the starting pattern.
+	 * Retrieve the attribute processors for the given project whose names best
+	 * match the pattern, whose restrictions allow them to be used in the given
+	 * element, and which aren't already on that element.
 	 * 
-	 * @param project    The current project.
-	 * @param namespaces List of namespaces available at the current point in
-	 *                   the document.
-	 * @param pattern    Start-of-string pattern to match.
-	 * @return List of all matching attribute processors.
+	 * @param project            The current project.
+	 * @param namespaces         List of namespaces available at the current
+	 *                           point in the document.
+	 * @param pattern            What has been typed of the name so far.
+	 * @param tagName            Name of the element the processor would be
+	 *                           used in.
+	 * @param existingAttributes Attributes already on that element.
+	 * @param limit              The most matches to return.
+	 * @return List of the best matching attribute processors and the names they
+	 *         matched on, best first.
 	 */
-	List<AttributeProcessor> getAttributeProcessors(IJavaProject project, List<QName> namespaces, String pattern) {
+	List<DialectItemMatch<AttributeProcessor>> getAttributeProcessorMatches(IJavaProject project,
+		List<QName> namespaces, String pattern, String tagName, NamedNodeMap existingAttributes, int limit) {
 
 		loadDialectsFromProject(project)
 
-		return dialectTree.getAttributeProcessorsForProject(project).findAll { processor ->
-			return (project.hasThymeleafNature() || dialectInNamespace(processor.dialect, namespaces)) &&
-				processorMatchesPattern(processor, pattern)
+		def visibleDialects = getVisibleDialects(project, namespaces)
+		def filter = { AttributeProcessor processor, String name ->
+			return (visibleDialects == null || visibleDialects.contains(processor.dialect)) &&
+				existingAttributes.getNamedItem(name) == null
 		}
+		return dialectTree.findAttributeProcessorMatches(project, pattern, tagName, existingAttributes, limit, filter)
 	}
 
 	/**
-	 * Retrieve all element processors for the given project, whose names match
-	 * the starting pattern.
+	 * Retrieve the rendered documentation for a dialect item, to be shown in
+	 * content assist proposals and hovers.  The documentation is rendered the
+	 * first time it's asked for, then kept on the dialect item itself so that
+	 * items which are equal but from different dialects or projects each keep
+	 * their own.
+	 * 
+	 * @param project     The current project.
+	 * @param dialectItem
+	 * @return Documentation HTML for the dialect item, or <tt>null</tt> if it
+	 * 		   has none.
+	 */
+	String getDocumentation(IJavaProject project, DialectItem dialectItem) {
+
+		// Documentation from Javadocs can change, so is re-rendered if the Javadocs
+		// it was rendered from are no longer the ones in the Javadoc cache
+		def javadoc = !dialectItem.isSetDocumentation() && dialectItem instanceof Processor &&
+			dialectItem.isSetClazz() && project ?
+			javadocCache.getJavadoc(project, ((Processor)dialectItem).clazz) :
+			null
+
+		def renderedDocumentation = dialectItem.renderedDocumentation
+		if (renderedDocumentation == null || !renderedDocumentation.v1.is(javadoc)) {
+			def documentation = dialectItem.isSetDocumentation() ? dialectItem.documentation :
+				javadoc ? new Documentation(value: javadoc) :
+				null
+			renderedDocumentation = new Tuple2<String,String>(javadoc,
+				documentationRenderer.render(dialectItem, documentation))
+			dialectItem.renderedDocumentation = renderedDocumentation
+		}
+		return renderedDocumentation.v2
+	}
+
+	/**
+	 * Retrieve the element processors for the given project whose names best
+	 * match the pattern.
 	 * 
 	 * @param project    The current project.
 	 * @param namespaces List of namespaces available at the current point in
 	 *                   the document.
-	 * @param pattern	   Start-of-string pattern to match.
-	 * @return List of all matching element processors
+	 * @param pattern    What has been typed of the name so far.
+	 * @param limit      The most matches to return.
+	 * @return List of the best matching element processors, best first.
 	 */
-	List<ElementProcessor> getElementProcessors(IJavaProject project, List<QName> namespaces, String pattern) {
+	List<DialectItemMatch<ElementProcessor>> getElementProcessorMatches(IJavaProject project,
+		List<QName> namespaces, String pattern, int limit) {
 
 		loadDialectsFromProject(project)
 
-		return dialectTree.getElementProcessorsForProject(project).findAll { processor ->
-			return (project.hasThymeleafNature() || dialectInNamespace(processor.dialect, namespaces)) &&
-				processorMatchesPattern(processor, pattern)
-		}
+		return dialectTree.findElementProcessorMatches(project, pattern, limit,
+			visibleDialectFilter(getVisibleDialects(project, namespaces)))
 	}
 
 	/**
@@ -189,31 +297,117 @@ class DialectCache {
 
 		loadDialectsFromProject(project)
 
-		return dialectTree.getExpressionObjectMethodsForProject(project).find { expressionObject ->
-			return (project.hasThymeleafNature() || dialectInNamespace(expressionObject.dialect, namespaces)) &&
-				expressionObjectMethodMatchesName(expressionObject, methodname)
+		def separator = methodname ? methodname.indexOf('.') : -1
+		if (separator == -1) {
+			return null
 		}
+		def visibleDialects = getVisibleDialects(project, namespaces)
+		for (def methodIndex: getExpressionObjectMethodIndexes(project, methodname.substring(0, separator))) {
+			def method = visibleItems(methodIndex.findByName(methodname), visibleDialects)[0]
+			if (method) {
+				return method
+			}
+		}
+		return null
 	}
 
 	/**
-	 * Retrieve all expression object methods for the given project, whose names
-	 * match the starting pattern.
+	 * Return the indexes over all of the methods of the expression objects
+	 * with the given name: first the methods declared in dialect files, then
+	 * the methods of the expression object classes, for those classes whose
+	 * methods have been worked out.
+	 * 
+	 * @param project
+	 * @param objectName Name of the expression object, including the leading
+	 *                   <tt>#</tt>.
+	 * @return List of method indexes.
+	 */
+	private List<DialectItemIndex<ExpressionObjectMethod>> getExpressionObjectMethodIndexes(
+		IJavaProject project, String objectName) {
+
+		def methodIndexes = new ArrayList<DialectItemIndex<ExpressionObjectMethod>>()
+		def declaredMethodIndex = dialectTree.findExpressionObjectMethodIndex(project, objectName)
+		if (declaredMethodIndex) {
+			methodIndexes << declaredMethodIndex
+		}
+		dialectTree.findExpressionObjectsByName(project, objectName).each { expressionObject ->
+			def methodIndex = expressionObjectMethodCache.getMethodIndex(project, expressionObject)
+			if (methodIndex) {
+				methodIndexes << methodIndex
+			}
+		}
+		return methodIndexes
+	}
+
+	/**
+	 * Retrieve the expression object methods for the given project whose names
+	 * best match the pattern.
 	 * 
 	 * @param project    The current project.
 	 * @param namespaces List of namespaces available at the current point in
 	 *                   the document.
-	 * @param pattern    Start-of-string pattern to match.
-	 * @return List of all matching expression object methods.
+	 * @param pattern    What has been typed of the name so far.
+	 * @param limit      The most matches to return.
+	 * @return List of the best matching expression object methods, best first.
 	 */
-	List<ExpressionObjectMethod> getExpressionObjectMethods(IJavaProject project,
-		List<QName> namespaces, String pattern) {
+	List<DialectItemMatch<ExpressionObjectMethod>> getExpressionObjectMethodMatches(IJavaProject project,
+		List<QName> namespaces, String pattern, int limit) {
 
 		loadDialectsFromProject(project)
 
-		return dialectTree.getExpressionObjectMethodsForProject(project).findAll { expressionObjectMethod ->
-			return (project.hasThymeleafNature() || dialectInNamespace(expressionObjectMethod.dialect, namespaces)) &&
-				expressionObjectMethodMatchesPattern(expressionObjectMethod, pattern)
+		if (!pattern) {
+			return []
+		}
+
+		// Only look at the methods of the expression objects being typed, or of
+		// the one already chosen if past the '.'
+		def separator = pattern.indexOf('.')
+		def objectNames = separator != -1 ? [pattern.substring(0, separator)] :
+			dialectTree.getExpressionObjectNamesForProject(project).findAll { objectName ->
+				return NameMatcher.matches(objectName, pattern)
+			}.sort()
+
+		def filter = visibleDialectFilter(getVisibleDialects(project, namespaces))
+		def matches = new ArrayList<DialectItemMatch<ExpressionObjectMethod>>()
+		def matchedNames = new HashSet<String>()
+		objectNames.each { objectName ->
+			getExpressionObjectMethodIndexes(project, objectName).each { methodIndex ->
+				methodIndex.findBestMatches(pattern, null, limit, filter).each { match ->
+					if (matchedNames.add(match.name)) {
+						matches << match
+					}
+				}
+			}
 		}
+		matches.sort { match1, match2 -> match2.score <=> match1.score }
+		return matches.size() > limit ? matches.subList(0, limit) : matches
+	}
+
+	/**
+	 * Work out which of a project's dialects can be used at the current point in
+	 * a document.  All of them can be used if the project has the Thymeleaf
+	 * nature, otherwise only those in the namespaces declared at that point.
+	 * 
+	 * @param project
+	 * @param namespaces List of namespaces available at the current point in
+	 *                   the document.
+	 * @return Set of visible dialects, compared by identity, or <tt>null</tt> if
+	 *         all of the project's dialects are visible.
+	 */
+	private Set<Dialect> getVisibleDialects(IJavaProject project, List<QName> namespaces) {
+
+		def dialects = dialectTree.getDialectsForProject(project)
+		if (!dialects || project.hasThymeleafNature()) {
+			return null
+		}
+
+		def visibleDialects = Collections.newSetFromMap(new IdentityHashMap<Dialect,Boolean>())
+		dialects.each { dialect ->
+			if (dialectInNamespace(dialect, namespaces)) {
+				visibleDialects << dialect
+			}
+		}
+		return visibleDialects.size() == dialects.size() ? null : visibleDialects
 	}
 
 	/**
@@ -230,66 +424,125 @@ class DialectCache {
 
 		loadDialectsFromProject(project)
 
-		def processors =
-			dialectTree.getAttributeProcessorsForProject(project) +
-			dialectTree.getElementProcessorsForProject(project)
-		return processors.find { processor ->
-			return (project.hasThymeleafNature() || dialectInNamespace(processor.dialect, namespaces)) &&
-				processorMatchesName(processor, processorName)
-		}
+		def visibleDialects = getVisibleDialects(project, namespaces)
+		return visibleItems(dialectTree.findAttributeProcessorsByName(project, processorName), visibleDialects)[0] ?:
+			visibleItems(dialectTree.findElementProcessorsByName(project, processorName), visibleDialects)[0]
 	}
 
 	/**
-	 * Gather all dialect information from the given project, if we haven't got
-	 * information on that project in the first place.
+	 * Start gathering all dialect information from the given project in the
+	 * background, if we haven't got, or aren't already getting, information on
+	 * that project.  Returns immediately.
 	 * 
 	 * @param project Project to scan for dialect information.
 	 */
-	// TODO: Is it possible to make this use @Lazy so it's not being called from
-	//       all the other methods?
-	private void loadDialectsFromProject(IJavaProject project) {
-
-		if (!dialectTree.containsProject(project)) {
-			def pathsAndDialects = xmlDialectLoader.load(new ProjectDependencyDialectLocator(project))
-			if (pathsAndDialects) {
-				pathsAndDialects.eachWithIndex { pathAndDialect, index ->
-					dialectTree.addProjectDialect(project, pathAndDialect.path,
-						dialectItemProcessor.processDialectItems(pathAndDialect.dialect, project))
-					dialectChangeListener.trackDialectFileForChanges(pathAndDialect.path, project)
+	void loadDialectsFromProject(IJavaProject project) {
+
+		if (project && !dialectLoadJobs.containsKey(project)) {
+			DialectLoadJob dialectLoadJob
+			dialectLoadJob = new DialectLoadJob(project, dialectIndexStore, scanExecutor, xmlDialectLoader,
+				dialectTree, dialectChangeListener, { ->
+					return dialectLoadJobs.get(project).is(dialectLoadJob)
+				})
+			if (!dialectLoadJobs.putIfAbsent(project, dialectLoadJob)) {
+
+				// Allow a cancelled load to be tried again later.  A failed one isn't,
+				// as it would most likely fail again, and be retried with every
+				// keystroke.
+				dialectLoadJob.addJobChangeListener(new JobChangeAdapter() {
+					@Override
+					void done(IJobChangeEvent event) {
+						if (event.result.severity == IStatus.CANCEL) {
+							dialectLoadJobs.remove(project, dialectLoadJob)
+						}
+					}
+				})
+				dialectLoadJob.schedule()
+			}
+		}
+	}
+
+	/**
+	 * Update a project's dialects for any package fragment roots that were
+	 * added to or removed from its classpath.  Removed roots have their dialects
+	 * dropped straight away, while added roots are scanned in the background.
+	 * If the project is still being loaded for the first time, then that load
+	 * is started over instead so that it picks up the new classpath.
+	 * 
+	 * @param project
+	 * @param projectDelta
+	 */
+	private void updateDialectsFromClasspathChanges(IJavaProject project, IJavaElementDelta projectDelta) {
+
+		def dialectLoadJob = dialectLoadJobs.get(project)
+		if (!dialectLoadJob) {
+			return
+		}
+
+		def addedRoots = []
+		def removedRoots = []
+		projectDelta.affectedChildren.each { rootDelta ->
+			if (rootDelta.element instanceof IPackageFragmentRoot) {
+				def root = (IPackageFragmentRoot)rootDelta.element
+				if (rootDelta.kind == REMOVED || rootDelta.flags & (F_REMOVED_FROM_CLASSPATH | F_ARCHIVE_CONTENT_CHANGED)) {
+					removedRoots << root
+				}
+				if (rootDelta.kind == ADDED || rootDelta.flags & (F_ADDED_TO_CLASSPATH | F_ARCHIVE_CONTENT_CHANGED)) {
+					addedRoots << root
 				}
 			}
-			else {
-				dialectTree.addProjectDialect(project, null, new ArrayList<DialectItem>())
+		}
+		if (!addedRoots && !removedRoots) {
+			return
+		}
+
+		removedRoots.each { root ->
+			logger.info("${root.elementName} removed from the classpath of ${project.elementName}, removing its dialects")
+			dialectTree.removeProjectDialects(project, root.path)
+		}
+
+		if (dialectLoadJob.result == null) {
+			if (dialectLoadJobs.remove(project, dialectLoadJob)) {
+				dialectLoadJob.cancel()
+				loadDialectsFromProject(project)
 			}
 		}
+		else if (addedRoots) {
+			logger.info("${addedRoots.size()} package fragment roots added to the classpath of ${project.elementName}, loading their dialects")
+			new DialectLoadJob(project, addedRoots, dialectIndexStore, scanExecutor, xmlDialectLoader,
+				dialectTree, dialectChangeListener, { ->
+					return dialectLoadJobs.get(project).is(dialectLoadJob)
+				}).schedule()
+		}
 	}
 
 	/**
-	 * Checks if the processor name (prefix:name or data-prefix-name) matches
-	 * the given name.
+	 * Create a filter for item matches that only lets through items from the
+	 * given dialects.
 	 * 
-	 * @param processor
-	 * @param name
-	 * @return <tt>true</tt> if the name matches the full processor name.
+	 * @param visibleDialects
+	 *   Set of dialects from {@link #getVisibleDialects}, or <tt>null</tt> if
+	 *   all dialects are visible.
+	 * @return Filter closure, or <tt>null</tt> if nothing needs filtering.
 	 */
-	private boolean processorMatchesName(Processor processor, String name) {
+	private static Closure<Boolean> visibleDialectFilter(Set<Dialect> visibleDialects) {
 
-		return processor.fullName == name ||
-			(processor instanceof AttributeProcessor && processor.fullDataName == name)
+		return visibleDialects == null ? null : { DialectItem item, String name ->
+			return visibleDialects.contains(item.dialect)
+		}
 	}
 
 	/**
-	 * Checks if the processor name (prefix:name or data-prefix-name) matches
-	 * the given start-of-string pattern.
+	 * Return only those items that come from one of the given dialects.
 	 * 
-	 * @param processor
-	 * @param pattern
-	 * @return <tt>true</tt> if the pattern matches against the processor prefix
-	 * 		   and name.
+	 * @param items
+	 * @param visibleDialects
+	 *   Set of dialects from {@link #getVisibleDialects}, or <tt>null</tt> if
+	 *   all dialects are visible.
+	 * @return The visible items, in the same order.
 	 */
-	private boolean processorMatchesPattern(Processor processor, String pattern) {
+	private static <T extends DialectItem> List<T> visibleItems(List<T> items, Set<Dialect> visibleDialects) {
 
-		return processor.fullName.startsWith(pattern) ||
-			(processor instanceof AttributeProcessor && processor.fullDataName.startsWith(pattern))
+		return visibleDialects == null ? items : items.findAll { item -> visibleDialects.contains(item.dialect) }
 	}
 }
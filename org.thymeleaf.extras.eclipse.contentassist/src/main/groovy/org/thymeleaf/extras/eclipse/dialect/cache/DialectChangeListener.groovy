@@ -16,12 +16,15 @@
 
 package org.thymeleaf.extras.eclipse.dialect.cache
 
+import org.eclipse.core.resources.IFile
 import org.eclipse.core.resources.IProject
 import org.eclipse.core.resources.IResourceChangeEvent
 import org.eclipse.core.resources.IResourceChangeListener
+import org.eclipse.core.resources.IResourceDelta
+import org.eclipse.core.resources.IResourceDeltaVisitor
+import org.eclipse.core.resources.IWorkspace
 import org.eclipse.core.runtime.IPath
 import org.eclipse.jdt.core.IJavaProject
-import org.eclipse.jdt.core.JavaCore
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 import org.thymeleaf.extras.eclipse.dialect.SingleFileDialectLocator
@@ -32,12 +35,22 @@ import jakarta.annotation.PreDestroy
 import jakarta.inject.Inject
 import jakarta.inject.Named
 import java.util.concurrent.ConcurrentHashMap
-import java.util.concurrent.ExecutorService
 import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
 
 /**
  * A resource change listener, acting on changes made to any dialect files,
  * updating the entries in the dialect tree as necessary.
+ * <p>
+ * Each change event has its delta walked just the once, checking each changed
+ * file against the set of tracked dialect files.  Changed dialect files are
+ * then reloaded after a short quiet period, so that a burst of events (eg: from
+ * a branch switch or a build tool refresh) results in a single reload of each
+ * dialect file rather than one per event.  A steady stream of events can only
+ * hold off the reload for so long though, so that changes still show up while
+ * eg: a build keeps writing into a watched folder.
  * 
  * @author Emanuel Rabina
  */
@@ -46,14 +59,21 @@ class DialectChangeListener implements IResourceChangeListener {
 
 	private static final Logger logger = LoggerFactory.getLogger(DialectChangeListener)
 
-	private final ExecutorService resourceChangeExecutor = Executors.newSingleThreadExecutor()
+	static final long RELOAD_DELAY_MILLIS = 500
+	static final long MAX_RELOAD_DELAY_MILLIS = 5000
+
+	private final ScheduledExecutorService resourceChangeExecutor = Executors.newSingleThreadScheduledExecutor()
 	private final ConcurrentHashMap<IPath,IProject> dialectFilesToTrack = new ConcurrentHashMap<>()
+	private final Set<IPath> dialectFileFolders = ConcurrentHashMap.newKeySet()
+	private final Set<IPath> changedDialectFiles = ConcurrentHashMap.newKeySet()
+	private ScheduledFuture<?> scheduledReload
+	private long firstPendingChangeNanos = -1
 
-	@Inject
-	private final DialectItemProcessor dialectItemProcessor
 	@Inject
 	private final DialectTree dialectTree
 	@Inject
+	private final IWorkspace workspace
+	@Inject
 	private final XmlDialectLoader xmlDialectLoader
 
 	/**
@@ -66,48 +86,115 @@ class DialectChangeListener implements IResourceChangeListener {
 	}
 
 	/**
-	 * When notified of a resource change, redirect the work to the change
-	 * executor thread so as to not block the event change thread.
+	 * Reload all of the dialect files that have changed since the last reload.
+	 */
+	private void reloadChangedDialectFiles() {
+
+		synchronized (this) {
+			firstPendingChangeNanos = -1
+		}
+		def dialectFilePaths = new ArrayList<IPath>(changedDialectFiles)
+		changedDialectFiles.removeAll(dialectFilePaths)
+
+		dialectFilePaths.each { dialectFilePath ->
+			def project = dialectFilesToTrack.get(dialectFilePath)
+			if (!project) {
+				return
+			}
+			try {
+				if (workspace.root.getFile(dialectFilePath).exists()) {
+					logger.info("Dialect file ${dialectFilePath.lastSegment()} changed, reloading dialect")
+					def locator = new SingleFileDialectLocator(workspace, dialectFilePath)
+					def updatedDialect = xmlDialectLoader.loadDialect(locator.locate().first())
+					dialectTree.updateDialect(dialectFilePath, updatedDialect.dialectItems)
+				}
+				else {
+					logger.info("Dialect file ${dialectFilePath.lastSegment()} removed, removing dialect")
+					dialectTree.updateDialect(dialectFilePath, null)
+				}
+			}
+			catch (Exception ex) {
+				logger.error("Unable to reload dialect file ${dialectFilePath}", ex)
+			}
+		}
+	}
+
+	/**
+	 * When notified of a resource change, note any changed dialect files and
+	 * schedule a reload of them on the change executor thread so as to not
+	 * block the event change thread.
 	 */
 	@Override
 	void resourceChanged(final IResourceChangeEvent event) {
 
-		resourceChangeExecutor.execute { ->
-			switch (event.type) {
-
-			// If a dialect file has changed, update the dialect items associated with it
-			case POST_CHANGE:
-				for (def dialectFilePath: dialectFilesToTrack.keySet()) {
-					def dialectFileDelta = event.delta.findMember(dialectFilePath)
-					if (dialectFileDelta) {
-						logger.info("Dialect file ${dialectFilePath.lastSegment()} changed, reloading dialect")
-						def javaProject = JavaCore.create(dialectFileDelta.resource.project)
-
-						def locator = new SingleFileDialectLocator(dialectFilePath)
-						def updateDialect = xmlDialectLoader.load(locator.locate())
-						def updatedDialectItems = dialectItemProcessor.processDialectItems(updateDialect.first(), javaProject)
-						dialectTree.updateDialect(dialectFilePath, updatedDialectItems)
+		switch (event.type) {
+
+		// If a dialect file has changed, update the dialect items associated with it
+		case POST_CHANGE:
+			if (dialectFilesToTrack && event.delta) {
+				def changesFound = false
+				event.delta.accept({ IResourceDelta delta ->
+					def resource = delta.resource
+					if (resource instanceof IFile) {
+						if (dialectFilesToTrack.containsKey(delta.fullPath) &&
+							(delta.kind != IResourceDelta.CHANGED || delta.flags & (IResourceDelta.CONTENT | IResourceDelta.REPLACED))) {
+							changedDialectFiles << delta.fullPath
+							changesFound = true
+						}
+						return false
 					}
+					return delta.fullPath.isRoot() || dialectFileFolders.contains(delta.fullPath)
+				} as IResourceDeltaVisitor)
+				if (changesFound) {
+					scheduleReload()
+				}
+			}
+			break
+
+		// If a project containing a dialect is changing, remove the dialect from the dialect tree.
+		case PRE_CLOSE:
+		case PRE_DELETE:
+			def project = (IProject)event.resource
+			def projectDialectFilePaths = dialectFilesToTrack.findAll { dialectFilePath, dialectProject ->
+				return dialectProject == project
+			}.keySet()
+			if (projectDialectFilePaths) {
+				projectDialectFilePaths.each { dialectFilePath ->
+					dialectFilesToTrack.remove(dialectFilePath)
+					changedDialectFiles.remove(dialectFilePath)
 				}
-				break
-
-			// If a project containing a dialect is changing, remove the dialect from the dialect tree.
-			case PRE_CLOSE:
-			case PRE_DELETE:
-				def project = (IProject)event.resource
-				for (def dialectFilePath: dialectFilesToTrack.keySet()) {
-					def dialectProject = dialectFilesToTrack.get(dialectFilePath)
-					if (project == dialectProject) {
+				updateDialectFileFolders()
+				resourceChangeExecutor.execute { ->
+					projectDialectFilePaths.each { dialectFilePath ->
 						logger.info("Project containing dialect file ${dialectFilePath.lastSegment()} has been closed/deleted, removing dialect.")
 						dialectTree.updateDialect(dialectFilePath, null)
-						dialectFilesToTrack.remove(dialectFilePath)
 					}
 				}
-				break
 			}
+			break
 		}
 	}
 
+	/**
+	 * Schedule a reload of changed dialect files, replacing any reload that
+	 * hasn't started yet so that the quiet period starts over, but never later
+	 * than {@link #MAX_RELOAD_DELAY_MILLIS} after the first change that hasn't
+	 * been reloaded yet.
+	 */
+	private synchronized void scheduleReload() {
+
+		def now = System.nanoTime()
+		if (firstPendingChangeNanos == -1) {
+			firstPendingChangeNanos = now
+		}
+		def remainingMillis = MAX_RELOAD_DELAY_MILLIS - TimeUnit.NANOSECONDS.toMillis(now - firstPendingChangeNanos)
+
+		scheduledReload?.cancel(false)
+		scheduledReload = resourceChangeExecutor.schedule({ ->
+			reloadChangedDialectFiles()
+		}, Math.max(0, Math.min(RELOAD_DELAY_MILLIS, remainingMillis)), TimeUnit.MILLISECONDS)
+	}
+
 	/**
 	 * Track a dialect file for changes.
 	 * 
@@ -117,5 +204,32 @@ class DialectChangeListener implements IResourceChangeListener {
 	void trackDialectFileForChanges(IPath dialectFilePath, IJavaProject project) {
 
 		dialectFilesToTrack.put(dialectFilePath, project.project)
+		addDialectFileFolders(dialectFilePath)
+	}
+
+	/**
+	 * Add all of the folders leading up to a dialect file to the set of folders
+	 * that the delta visitor needs to go into.
+	 * 
+	 * @param dialectFilePath
+	 */
+	private void addDialectFileFolders(IPath dialectFilePath) {
+
+		for (def folderPath = dialectFilePath.removeLastSegments(1); folderPath.segmentCount() > 0;
+			folderPath = folderPath.removeLastSegments(1)) {
+			dialectFileFolders << folderPath
+		}
+	}
+
+	/**
+	 * Rebuild the set of folders that lead to tracked dialect files, after some
+	 * have stopped being tracked.
+	 */
+	private void updateDialectFileFolders() {
+
+		dialectFileFolders.clear()
+		dialectFilesToTrack.keySet().each { dialectFilePath ->
+			addDialectFileFolders(dialectFilePath)
+		}
 	}
 }
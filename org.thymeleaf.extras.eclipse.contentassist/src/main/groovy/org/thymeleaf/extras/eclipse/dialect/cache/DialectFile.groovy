@@ -17,27 +17,33 @@
 package org.thymeleaf.extras.eclipse.dialect.cache
 
 import org.thymeleaf.extras.eclipse.dialect.xml.AttributeProcessor
+import org.thymeleaf.extras.eclipse.dialect.xml.Dialect
 import org.thymeleaf.extras.eclipse.dialect.xml.DialectItem
 import org.thymeleaf.extras.eclipse.dialect.xml.ElementProcessor
+import org.thymeleaf.extras.eclipse.dialect.xml.ExpressionObject
 import org.thymeleaf.extras.eclipse.dialect.xml.ExpressionObjectMethod
 
 /**
- * Representation of a file containing dialect information.
+ * Representation of a file containing dialect information.  Instances are
+ * immutable so that they can be shared between threads without locking.
+ * <p>
+ * The restrictions of any attribute processors are compiled when the file is
+ * created, ready for checking against the element that content assist is
+ * being requested for.  Otherwise items are kept just as they were read from
+ * the dialect file, with any documentation from Javadocs, and the methods of
+ * expression object classes, only worked out when content assist first needs
+ * them, by the {@link JavadocCache} and {@link ExpressionObjectMethodCache}.
  * 
  * @author Emanuel Rabina
  */
 class DialectFile {
 
-	private final ArrayList<DialectItem> dialectItems
-
-	@Lazy(soft = true)
-	ArrayList<AttributeProcessor> attributeProcessors = { -> getDialectItemsByType(AttributeProcessor) }()
-
-	@Lazy(soft = true)
-	ArrayList<ElementProcessor> elementProcessors = { -> getDialectItemsByType(ElementProcessor) }()
-
-	@Lazy(soft = true)
-	ArrayList<ExpressionObjectMethod> expressionObjectMethods = { -> getDialectItemsByType(ExpressionObjectMethod) }()
+	final List<AttributeProcessor> attributeProcessors
+	final List<ElementProcessor> elementProcessors
+	final List<ExpressionObject> expressionObjects
+	final List<ExpressionObjectMethod> expressionObjectMethods
+	final Map<AttributeProcessor,CompiledAttributeRestrictions> attributeProcessorRestrictions
+	final Set<Dialect> dialects
 
 	/**
 	 * Constructor, associate this class with a dialect's processed items.
@@ -46,20 +52,41 @@ class DialectFile {
 	 */
 	DialectFile(List<DialectItem> dialectItems) {
 
-		this.dialectItems = new ArrayList<>(dialectItems)
+		attributeProcessors     = getDialectItemsByType(dialectItems, AttributeProcessor)
+		elementProcessors       = getDialectItemsByType(dialectItems, ElementProcessor)
+		expressionObjects       = getDialectItemsByType(dialectItems, ExpressionObject)
+		expressionObjectMethods = getDialectItemsByType(dialectItems, ExpressionObjectMethod)
+
+		def restrictions = new IdentityHashMap<AttributeProcessor,CompiledAttributeRestrictions>()
+		attributeProcessors.each { attributeProcessor ->
+			if (attributeProcessor.isSetRestrictions()) {
+				restrictions[attributeProcessor] = new CompiledAttributeRestrictions(attributeProcessor.restrictions)
+			}
+		}
+		attributeProcessorRestrictions = Collections.unmodifiableMap(restrictions)
+
+		// Items of the same dialect all share the one dialect object
+		def itemDialects = Collections.newSetFromMap(new IdentityHashMap<Dialect,Boolean>())
+		dialectItems.each { dialectItem ->
+			itemDialects << dialectItem.dialect
+		}
+		dialects = Collections.unmodifiableSet(itemDialects)
 	}
 
 	/**
-	 * Get all of the given type of dialect item in this dialect.
+	 * Get all of the given type of dialect item in a dialect.
 	 * 
+	 * @param dialectItems
 	 * @param type
 	 *   Item type.
 	 * @param <T>
 	 *   Item type.
-	 * @return List of all dialect items of the given type.
+	 * @return Unmodifiable list of all dialect items of the given type.
 	 */
-	private <T> ArrayList<T> getDialectItemsByType(Class<T> type) {
+	private static <T> List<T> getDialectItemsByType(List<DialectItem> dialectItems, Class<T> type) {
 
-		return dialectItems.findAll { dialectItem -> type.isAssignableFrom(dialectItem.class) }
+		return Collections.unmodifiableList(dialectItems.findAll { dialectItem ->
+			return type.isAssignableFrom(dialectItem.class)
+		})
 	}
 }
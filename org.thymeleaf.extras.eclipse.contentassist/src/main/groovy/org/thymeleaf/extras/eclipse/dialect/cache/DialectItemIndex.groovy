@@ -0,0 +1,223 @@
+/*
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.dialect.cache
+
+import org.thymeleaf.extras.eclipse.dialect.xml.DialectItem
+
+/**
+ * A read-only index over an already-sorted list of dialect items, so that items
+ * can be looked up by any of their names, or the start of any of their names,
+ * without having to scan the whole list.  Names are kept in an array sorted
+ * without regard to case so that a prefix query is a binary search for the
+ * start of the matching range, then a walk to the end of it, and in a hash map
+ * for exact name lookups.
+ * <p>
+ * Each name also has a {@link NameMatcher} prepared for it, for the looser
+ * matching and ranking used to come up with the best completions for what has
+ * been typed so far.
+ *
+ * @param <T> The type of dialect item being indexed.
+ * @author Emanuel Rabina
+ */
+class DialectItemIndex<T extends DialectItem> {
+
+	final List<T> items
+
+	private final String[] names
+	private final String[] lowerNames
+	private final int[] nameItems
+	private final int[] nameSlots
+	private final NameMatcher[] nameMatchers
+	private final HashMap<String,List<T>> itemsByName
+
+	/**
+	 * Constructor, build the index over the given items.
+	 *
+	 * @param items
+	 *   The dialect items to index, already in the order in which they should be
+	 *   returned from queries.
+	 * @param namesForItem
+	 *   Closure returning all of the names an item can be found by, eg: both the
+	 *   {@code prefix:name} and {@code data-prefix-name} forms of an attribute
+	 *   processor.
+	 */
+	DialectItemIndex(List<T> items, Closure<List<String>> namesForItem) {
+
+		this.items = Collections.unmodifiableList(new ArrayList<T>(items))
+
+		// Exact name lookups are kept in item order for the rare case of 2 items
+		// sharing the same name (eg: same prefix, but different namespaces)
+		def entries = new ArrayList<Tuple3<String,Integer,Integer>>(items.size() * 2)
+		itemsByName = new HashMap<>(items.size() * 4)
+		items.eachWithIndex { item, ordinal ->
+			namesForItem(item).eachWithIndex { name, slot ->
+				entries << new Tuple3<String,Integer,Integer>(name, ordinal, slot)
+				def namedItems = itemsByName[name]
+				if (namedItems == null) {
+					itemsByName[name] = [item]
+				}
+				else if (!namedItems.contains(item)) {
+					namedItems << item
+				}
+			}
+		}
+		entries.sort { entry1, entry2 -> entry1.v1.toLowerCase() <=> entry2.v1.toLowerCase() }
+
+		names = new String[entries.size()]
+		lowerNames = new String[entries.size()]
+		nameItems = new int[entries.size()]
+		nameSlots = new int[entries.size()]
+		nameMatchers = new NameMatcher[entries.size()]
+		entries.eachWithIndex { entry, index ->
+			names[index] = entry.v1
+			lowerNames[index] = entry.v1.toLowerCase()
+			nameItems[index] = entry.v2
+			nameSlots[index] = entry.v3
+			nameMatchers[index] = new NameMatcher(entry.v1)
+		}
+	}
+
+	/**
+	 * Return the items with names that best match the given pattern, best
+	 * match first.  Matches are ranked by how well the pattern matches (see
+	 * {@link NameMatcher}), then by which of an item's names was matched, then
+	 * by the order of the list this index was created with, so that an empty
+	 * pattern returns items in their original order.
+	 * <p>
+	 * Names starting with the pattern are found first with a binary search for
+	 * their range in the sorted names.  Looser matches can only rank below
+	 * those, so the rest of the names are only scored when there weren't enough
+	 * prefix matches to fill the limit.
+	 *
+	 * @param pattern
+	 * @param candidates
+	 *   The positions of the items, in the list this index was created with,
+	 *   which can be returned.  If <tt>null</tt>, then all items can be
+	 *   returned.
+	 * @param limit
+	 *   The most matches to return.
+	 * @param filter
+	 *   Optional closure called with an item and the name it matched on, to
+	 *   check that the match can be returned.  Only called for matches that
+	 *   would otherwise be amongst the best ones.
+	 * @return List of the best matches.
+	 */
+	List<DialectItemMatch<T>> findBestMatches(String pattern, BitSet candidates, int limit,
+		Closure<Boolean> filter) {
+
+		if (limit <= 0 || !names) {
+			return []
+		}
+
+		// Matches are kept as the score in the high bits and the name index in
+		// the low bits, so no per-name bookkeeping is needed for a query
+		Comparator<Long> worstFirst = { Long match1, Long match2 ->
+			def index1 = (int)match1
+			def index2 = (int)match2
+			return (match1 >>> 32) <=> (match2 >>> 32) ?:
+				nameSlots[index2] <=> nameSlots[index1] ?:
+				nameItems[index2] <=> nameItems[index1]
+		}
+		def bestMatches = new PriorityQueue<Long>(Math.min(limit, names.length) + 1, worstFirst)
+		def offer = { int index, int score ->
+			def ordinal = nameItems[index]
+			if (candidates != null && !candidates.get(ordinal)) {
+				return
+			}
+			def match = ((long)score << 32) | index
+			if (bestMatches.size() < limit || worstFirst.compare(match, bestMatches.peek()) > 0) {
+				if (filter == null || filter(items[ordinal], names[index])) {
+					bestMatches.offer(match)
+					if (bestMatches.size() > limit) {
+						bestMatches.poll()
+					}
+				}
+			}
+		}
+
+		def lowerPattern = pattern ? pattern.toLowerCase() : ''
+		def start = lowerBound(lowerPattern)
+		def end = start
+		while (end < names.length && lowerNames[end].startsWith(lowerPattern)) {
+			offer(end, lowerNames[end] == lowerPattern ? NameMatcher.EXACT : NameMatcher.PREFIX)
+			end++
+		}
+
+		// Not enough prefix matches, so fall back to scoring the names outside of
+		// that range, none of which can be a prefix match
+		if (bestMatches.size() < limit) {
+			for (int index = 0; index < names.length; index++) {
+				if (index == start && end > start) {
+					index = end - 1
+					continue
+				}
+				if (candidates != null && !candidates.get(nameItems[index])) {
+					continue
+				}
+				def score = nameMatchers[index].match(lowerPattern)
+				if (score != NameMatcher.NO_MATCH) {
+					offer(index, score)
+				}
+			}
+		}
+
+		def results = new ArrayList<DialectItemMatch<T>>(bestMatches.size())
+		while (bestMatches) {
+			def match = bestMatches.poll()
+			def index = (int)match
+			results << new DialectItemMatch<T>(items[nameItems[index]], names[index], (int)(match >>> 32))
+		}
+		return results.reverse()
+	}
+
+	/**
+	 * Return all items which can be found by the given name.
+	 *
+	 * @param name
+	 * @return List of items with that name, in the same order as the list this
+	 *   index was created with.  Usually this will be either an empty list or a
+	 *   list of just 1 item.
+	 */
+	List<T> findByName(String name) {
+
+		return itemsByName[name] ?: []
+	}
+
+	/**
+	 * Binary search for the position of the first name that is equal to or
+	 * greater than the given key, ignoring case.
+	 *
+	 * @param key
+	 *   Key in lower case.
+	 * @return Index into the names array.
+	 */
+	private int lowerBound(String key) {
+
+		int low = 0
+		int high = names.length
+		while (low < high) {
+			int mid = (low + high) >>> 1
+			if (lowerNames[mid].compareTo(key) < 0) {
+				low = mid + 1
+			}
+			else {
+				high = mid
+			}
+		}
+		return low
+	}
+}
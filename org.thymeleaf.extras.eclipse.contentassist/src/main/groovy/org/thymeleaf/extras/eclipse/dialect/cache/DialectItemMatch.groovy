@@ -0,0 +1,37 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.thymeleaf.extras.eclipse.dialect.cache
+
+import org.thymeleaf.extras.eclipse.dialect.xml.DialectItem
+
+import groovy.transform.TupleConstructor
+
+/**
+ * A dialect item found by a completion query, along with which of its names
+ * was matched and how well.
+ * 
+ * @param <T> The type of dialect item matched.
+ * @author Emanuel Rabina
+ */
+@TupleConstructor(defaults = false)
+class DialectItemMatch<T extends DialectItem> {
+
+	final T item
+	final String name
+	final int score
+}
@@ -0,0 +1,243 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.dialect.cache
+
+import org.eclipse.core.runtime.IPath
+import org.eclipse.core.runtime.IProgressMonitor
+import org.eclipse.core.runtime.IStatus
+import org.eclipse.core.runtime.OperationCanceledException
+import org.eclipse.core.runtime.Status
+import org.eclipse.core.runtime.SubMonitor
+import org.eclipse.core.runtime.jobs.Job
+import org.eclipse.jdt.core.IJavaProject
+import org.eclipse.jdt.core.IPackageFragmentRoot
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import org.thymeleaf.extras.eclipse.dialect.DialectIndexStore
+import org.thymeleaf.extras.eclipse.dialect.PathAndStream
+import org.thymeleaf.extras.eclipse.dialect.ProjectDependencyDialectLocator
+import org.thymeleaf.extras.eclipse.dialect.XmlDialectLoader
+import org.thymeleaf.extras.eclipse.resources.ScanExecutor
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
+
+/**
+ * Background job for gathering all of the dialect information from a project,
+ * so that the potentially long scan of a project's dependencies doesn't block
+ * the UI thread.  Dialects are processed in parallel on the shared
+ * {@link ScanExecutor}, and added to the dialect tree as they are done, so
+ * content assist can make use of those already loaded while the rest are still
+ * on their way.
+ * <p>
+ * A job can also be limited to just some of a project's package fragment
+ * roots, for when they are added to a project whose other dialects have already
+ * been loaded.
+ * 
+ * @author Emanuel Rabina
+ */
+class DialectLoadJob extends Job {
+
+	private static final Logger logger = LoggerFactory.getLogger(DialectLoadJob)
+
+	final IJavaProject project
+	final List<IPackageFragmentRoot> packageFragmentRoots
+
+	private final DialectIndexStore dialectIndexStore
+	private final ScanExecutor scanExecutor
+	private final XmlDialectLoader xmlDialectLoader
+	private final DialectTree dialectTree
+	private final DialectChangeListener dialectChangeListener
+	private final Closure<Boolean> isCurrent
+
+	/**
+	 * Constructor, set the project to load dialects from and the components
+	 * that help out with that.
+	 * 
+	 * @param project
+	 * @param dialectIndexStore
+	 * @param scanExecutor
+	 * @param xmlDialectLoader
+	 * @param dialectTree
+	 * @param dialectChangeListener
+	 * @param isCurrent
+	 *   Closure returning whether the dialects being loaded are still wanted for
+	 *   the project, checked before each update to the dialect tree.
+	 */
+	DialectLoadJob(IJavaProject project, DialectIndexStore dialectIndexStore, ScanExecutor scanExecutor,
+		XmlDialectLoader xmlDialectLoader, DialectTree dialectTree, DialectChangeListener dialectChangeListener,
+		Closure<Boolean> isCurrent) {
+
+		this(project, null, dialectIndexStore, scanExecutor, xmlDialectLoader, dialectTree, dialectChangeListener,
+			isCurrent)
+	}
+
+	/**
+	 * Constructor, set the project and which of its package fragment roots to
+	 * load dialects from, and the components that help out with that.
+	 * 
+	 * @param project
+	 * @param packageFragmentRoots
+	 *   The package fragment roots to search, or <tt>null</tt> to search all of
+	 *   them.
+	 * @param dialectIndexStore
+	 * @param scanExecutor
+	 * @param xmlDialectLoader
+	 * @param dialectTree
+	 * @param dialectChangeListener
+	 * @param isCurrent
+	 *   Closure returning whether the dialects being loaded are still wanted for
+	 *   the project, checked before each update to the dialect tree.
+	 */
+	DialectLoadJob(IJavaProject project, List<IPackageFragmentRoot> packageFragmentRoots,
+		DialectIndexStore dialectIndexStore, ScanExecutor scanExecutor, XmlDialectLoader xmlDialectLoader,
+		DialectTree dialectTree, DialectChangeListener dialectChangeListener, Closure<Boolean> isCurrent) {
+
+		super("Loading Thymeleaf dialects for ${project.elementName}")
+		this.project               = project
+		this.packageFragmentRoots  = packageFragmentRoots
+		this.dialectIndexStore     = dialectIndexStore
+		this.scanExecutor          = scanExecutor
+		this.xmlDialectLoader      = xmlDialectLoader
+		this.dialectTree           = dialectTree
+		this.dialectChangeListener = dialectChangeListener
+		this.isCurrent             = isCurrent
+		priority = LONG
+	}
+
+	/**
+	 * All dialect loading jobs belong to the family identified by this class, so
+	 * that they can be found, waited on, or cancelled together.
+	 * 
+	 * @param family
+	 * @return <tt>true</tt> if <tt>family</tt> is this class.
+	 */
+	@Override
+	boolean belongsTo(Object family) {
+
+		return family == DialectLoadJob
+	}
+
+	/**
+	 * Parse a located dialect.  Dialects from jars are shared with
+	 * any other project using the same jar, so are only loaded if no other
+	 * project has loaded them already.
+	 * 
+	 * @param pathAndStream
+	 * @return Dialect file, ready for content assist queries.
+	 */
+	private DialectFile loadDialectFile(PathAndStream pathAndStream) {
+
+		if (pathAndStream.identity) {
+			return dialectTree.getOrCreateSharedDialectFile(pathAndStream.identity) { ->
+				return new DialectFile(xmlDialectLoader.loadDialect(pathAndStream).dialectItems)
+			}
+		}
+		return new DialectFile(xmlDialectLoader.loadDialect(pathAndStream).dialectItems)
+	}
+
+	/**
+	 * Scan the project for dialects, then process them in parallel on the scan
+	 * executor, adding them to the dialect tree in the order they were found.
+	 * Only as many dialects as there are scanning threads are processed at a
+	 * time, and those that finish together are added in a single update to the
+	 * dialect tree.  A dialect that can't be loaded is logged and skipped so
+	 * that it doesn't stop the others from loading.  The job stops without
+	 * touching the dialect tree once it's cancelled or its dialects are no
+	 * longer wanted.
+	 * 
+	 * @param monitor
+	 * @return {@link Status#OK_STATUS} once all dialects have been loaded, or
+	 *   {@link Status#CANCEL_STATUS} if the job was cancelled part way.
+	 */
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+
+		def subMonitor = SubMonitor.convert(monitor, name, 100)
+		try {
+			def pathsAndStreams = new ProjectDependencyDialectLocator(project, subMonitor.split(50), dialectIndexStore,
+				scanExecutor, packageFragmentRoots).locate()
+
+			def dialectsMonitor = subMonitor.split(50).setWorkRemaining(pathsAndStreams.size())
+			def remaining = pathsAndStreams.iterator()
+			def loading = new ArrayDeque<Tuple2<PathAndStream,Future<DialectFile>>>()
+			def submitNext = { ->
+				while (remaining.hasNext() && loading.size() < Math.max(scanExecutor.parallelism, 1)) {
+					def pathAndStream = remaining.next()
+					loading << new Tuple2<PathAndStream,Future<DialectFile>>(pathAndStream,
+						scanExecutor.submit(dialectsMonitor, { -> loadDialectFile(pathAndStream) } as Callable<DialectFile>))
+				}
+			}
+			submitNext()
+
+			while (loading) {
+
+				// Wait for the next dialect in order, then take any after it that are
+				// also done, so that they all go into the dialect tree together
+				def dialectFiles = new LinkedHashMap<IPath,DialectFile>()
+				def workspacePaths = new ArrayList<IPath>()
+				while (loading && (!dialectFiles || loading.peekFirst().v2.done)) {
+					def next = loading.pollFirst()
+					def pathAndStream = next.v1
+					dialectsMonitor.split(1)
+					dialectsMonitor.subTask(pathAndStream.path?.lastSegment() ?: '')
+					DialectFile dialectFile
+					try {
+						dialectFile = next.v2.get()
+					}
+					catch (ExecutionException ex) {
+						if (ex.cause instanceof OperationCanceledException) {
+							throw ex.cause
+						}
+						logger.warn("Unable to load dialect ${pathAndStream.path}, skipping it", ex.cause)
+						continue
+					}
+					if (dialectFile == null) {
+						throw new OperationCanceledException()
+					}
+					dialectFiles[pathAndStream.path] = dialectFile
+					if (!pathAndStream.identity) {
+						workspacePaths << pathAndStream.path
+					}
+				}
+				submitNext()
+
+				// Don't put back a project that was closed, deleted, or started loading
+				// over while this batch was on its way
+				if (subMonitor.canceled || !isCurrent()) {
+					throw new OperationCanceledException()
+				}
+
+				// Dialects in the workspace belong to just this project and are watched
+				// for changes
+				dialectTree.addProjectDialects(project, dialectFiles)
+				workspacePaths.each { path ->
+					dialectChangeListener.trackDialectFileForChanges(path, project)
+				}
+			}
+			return Status.OK_STATUS
+		}
+		catch (OperationCanceledException ignored) {
+			logger.info("Loading of dialects for ${project.elementName} was cancelled")
+			return Status.CANCEL_STATUS
+		}
+		finally {
+			monitor?.done()
+		}
+	}
+}
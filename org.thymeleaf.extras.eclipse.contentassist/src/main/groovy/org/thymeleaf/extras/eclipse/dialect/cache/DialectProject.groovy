@@ -18,57 +18,169 @@ package org.thymeleaf.extras.eclipse.dialect.cache
 
 import org.eclipse.core.runtime.IPath
 import org.thymeleaf.extras.eclipse.dialect.xml.AttributeProcessor
+import org.thymeleaf.extras.eclipse.dialect.xml.Dialect
 import org.thymeleaf.extras.eclipse.dialect.xml.DialectItem
 import org.thymeleaf.extras.eclipse.dialect.xml.ElementProcessor
+import org.thymeleaf.extras.eclipse.dialect.xml.ExpressionObject
 import org.thymeleaf.extras.eclipse.dialect.xml.ExpressionObjectMethod
+import org.w3c.dom.NamedNodeMap
 
 /**
  * Representation of a project that contains one or more files which in turn
  * contain dialect information.
+ * <p>
+ * A dialect project is an immutable snapshot of the dialects in a project at
+ * some point in time, along with the indexes used to query them.  Any change
+ * to the dialects results in a new snapshot, built by whichever thread is
+ * making the change, which can then be published for content assist to pick
+ * up without either side having to lock.
+ * <p>
+ * Attribute processors are also indexed by the tags they can appear in, so
+ * that content assist for a tag can start from just the processors allowed on
+ * it.  Expression objects, and any of their methods declared in a dialect
+ * file, are grouped by expression object name (eg: {@code #strings}), so that
+ * content assist for an expression object only looks at its methods.
  * 
  * @author Emanuel Rabina
  */
 class DialectProject {
 
-	private final HashMap<IPath,DialectFile> dialectFilePaths = [:]
+	/**
+	 * Comparator for dialect items.  Dialect items are sorted in alphabetical
+	 * order, prefix first, then the processor name.
+	 */
+	private static final Closure dialectItemSorter = { DialectItem item1, DialectItem item2 ->
+		def dialect1 = item1.dialect
+		def dialect2 = item2.dialect
+		return dialect1 != dialect2 ? dialect1.prefix <=> dialect2.prefix : item1.name <=> item2.name
+	}
+
+	static final DialectProject EMPTY = new DialectProject([:])
+
+	private final Map<IPath,DialectFile> dialectFilePaths
+
+	final DialectItemIndex<AttributeProcessor> attributeProcessorIndex
+	final DialectItemIndex<ElementProcessor> elementProcessorIndex
+	final DialectItemIndex<ExpressionObjectMethod> expressionObjectMethodIndex
+	final Map<String,DialectItemIndex<ExpressionObjectMethod>> expressionObjectMethodIndexes
+	final Map<String,List<ExpressionObject>> expressionObjects
+	final Set<Dialect> dialects
+
+	private final Map<AttributeProcessor,CompiledAttributeRestrictions> attributeProcessorRestrictions
+	private final BitSet attributeProcessorsForAnyTag
+	private final Map<String,BitSet> attributeProcessorsByTag
+
+	/**
+	 * Constructor, create a snapshot over the given dialect files, building the
+	 * item indexes for them.
+	 * 
+	 * @param dialectFilePaths
+	 */
+	private DialectProject(Map<IPath,DialectFile> dialectFilePaths) {
+
+		this.dialectFilePaths = Collections.unmodifiableMap(dialectFilePaths)
+
+		def dialectFiles = dialectFilePaths.values()
+		attributeProcessorIndex = new DialectItemIndex<AttributeProcessor>(
+			sortedItems(dialectFiles) { dialectFile -> dialectFile.attributeProcessors },
+			{ AttributeProcessor processor -> [processor.fullName, processor.fullDataName] }
+		)
+		elementProcessorIndex = new DialectItemIndex<ElementProcessor>(
+			sortedItems(dialectFiles) { dialectFile -> dialectFile.elementProcessors },
+			{ ElementProcessor processor -> [processor.fullName] }
+		)
+		expressionObjectMethodIndex = new DialectItemIndex<ExpressionObjectMethod>(
+			sortedItems(dialectFiles) { dialectFile -> dialectFile.expressionObjectMethods },
+			{ ExpressionObjectMethod method -> [method.fullName] }
+		)
+
+		def methodsByObjectName = expressionObjectMethodIndex.items.groupBy { method ->
+			def separator = method.name.indexOf('.')
+			return '#' + (separator != -1 ? method.name.substring(0, separator) : method.name)
+		}
+		def methodIndexes = new HashMap<String,DialectItemIndex<ExpressionObjectMethod>>(methodsByObjectName.size() * 2)
+		methodsByObjectName.each { objectName, methods ->
+			methodIndexes[objectName] = new DialectItemIndex<ExpressionObjectMethod>(methods,
+				{ ExpressionObjectMethod method -> [method.fullName] })
+		}
+		expressionObjectMethodIndexes = Collections.unmodifiableMap(methodIndexes)
+		expressionObjects = Collections.unmodifiableMap(
+			sortedItems(dialectFiles) { dialectFile -> dialectFile.expressionObjects }
+				.groupBy { expressionObject -> '#' + expressionObject.name }
+		)
 
-	@Lazy(soft = true)
-	private ArrayList<AttributeProcessor> attributeProcessors = { ->
-		return dialectFilePaths.values().inject([]) { acc, dialectFile ->
-			return acc + dialectFile.attributeProcessors
+		def projectDialects = Collections.newSetFromMap(new IdentityHashMap<Dialect,Boolean>())
+		dialectFiles.each { dialectFile ->
+			projectDialects.addAll(dialectFile.dialects)
 		}
-	}()
+		dialects = Collections.unmodifiableSet(projectDialects)
 
-	@Lazy(soft = true)
-	private ArrayList<ElementProcessor> elementProcessors = { ->
-		return dialectFilePaths.values().inject([]) { acc, dialectFile ->
-			return acc + dialectFile.elementProcessors
+		// Processors with no tag restrictions, or only tags they can't appear in,
+		// are candidates for any tag other than those mentioned in a restriction
+		attributeProcessorRestrictions = new IdentityHashMap<>()
+		dialectFiles.each { dialectFile ->
+			attributeProcessorRestrictions.putAll(dialectFile.attributeProcessorRestrictions)
+		}
+		def attributeProcessors = attributeProcessorIndex.items
+		attributeProcessorsForAnyTag = new BitSet(attributeProcessors.size())
+		def restrictedTags = new HashSet<String>()
+		attributeProcessors.eachWithIndex { attributeProcessor, ordinal ->
+			def restrictions = attributeProcessorRestrictions[attributeProcessor]
+			if (restrictions?.allowedTags == null) {
+				attributeProcessorsForAnyTag.set(ordinal)
+			}
+			if (restrictions) {
+				restrictedTags.addAll(restrictions.allowedTags ?: [])
+				restrictedTags.addAll(restrictions.excludedTags)
+			}
+		}
+		attributeProcessorsByTag = new HashMap<>(restrictedTags.size() * 2)
+		restrictedTags.each { tagName ->
+			def candidates = new BitSet(attributeProcessors.size())
+			attributeProcessors.eachWithIndex { attributeProcessor, ordinal ->
+				def restrictions = attributeProcessorRestrictions[attributeProcessor]
+				if (restrictions ? restrictions.allowsTag(tagName) : true) {
+					candidates.set(ordinal)
+				}
+			}
+			attributeProcessorsByTag[tagName] = candidates
 		}
-	}()
+	}
+
+	/**
+	 * Return the attribute processors whose names best match the given pattern,
+	 * and whose restrictions allow them to be used in the given tag alongside
+	 * the given attributes.
+	 * 
+	 * @param pattern
+	 * @param tagName
+	 * @param existingAttributes
+	 * @param limit
+	 *   The most matches to return.
+	 * @param filter
+	 *   Optional closure to further check an attribute processor and the name
+	 *   it was matched on.
+	 * @return List of the best matches, best first.
+	 */
+	List<DialectItemMatch<AttributeProcessor>> findAttributeProcessorMatches(String pattern, String tagName,
+		NamedNodeMap existingAttributes, int limit, Closure<Boolean> filter) {
 
-	@Lazy(soft = true)
-	private ArrayList<ExpressionObjectMethod> expressionObjectMethods = { ->
-		return dialectFilePaths.values().inject([]) { acc, dialectFile ->
-			return acc + dialectFile.expressionObjectMethods
+		def candidates = attributeProcessorsByTag[tagName] ?: attributeProcessorsForAnyTag
+		return attributeProcessorIndex.findBestMatches(pattern, candidates, limit) { AttributeProcessor attributeProcessor, String name ->
+			def restrictions = attributeProcessorRestrictions[attributeProcessor]
+			return (!restrictions || restrictions.allowsAttributes(existingAttributes)) &&
+				(filter == null || filter(attributeProcessor, name))
 		}
-	}()
+	}
 
 	/**
-	 * Adds a dialect to this project.  If the path already exists for a dialect
-	 * in this project, then this method will ovewrite that dialect.
+	 * Return the dialect files that make up this project.
 	 * 
-	 * @param dialectFilepath
-	 *   The resource path to the dialect.
-	 * @param dialectItems
-	 *   A list of the items in the dialect, but already processed to include all
-	 *   the information they need for content assist queries.
+	 * @return
 	 */
-	void addDialect(IPath dialectFilePath, List<DialectItem> dialectItems) {
+	Collection<DialectFile> getDialectFiles() {
 
-		dialectFilePaths[dialectFilePath] = new DialectFile(dialectItems)
-		attributeProcessors     = null
-		elementProcessors       = null
-		expressionObjectMethods = null
+		return dialectFilePaths.values()
 	}
 
 	/**
@@ -81,19 +193,93 @@ class DialectProject {
 	 */
 	boolean hasDialect(IPath dialectFilePath) {
 
-		return dialectFilePaths[dialectFilePath]
+		return dialectFilePaths.containsKey(dialectFilePath)
+	}
+
+	/**
+	 * Gather the items of one type from all of the given dialect files into a
+	 * single list, sorted for content assist.
+	 * 
+	 * @param dialectFiles
+	 * @param itemsOfFile
+	 *   Closure to return the items of the wanted type from a dialect file.
+	 * @return Sorted list of dialect items.
+	 */
+	private static <T extends DialectItem> List<T> sortedItems(Collection<DialectFile> dialectFiles,
+		Closure<List<T>> itemsOfFile) {
+
+		def items = new ArrayList<T>(dialectFiles.sum(0) { dialectFile -> itemsOfFile(dialectFile).size() } as int)
+		dialectFiles.each { dialectFile ->
+			items.addAll(itemsOfFile(dialectFile))
+		}
+		return items.sort(dialectItemSorter)
+	}
+
+	/**
+	 * Return a new snapshot of this project with the given dialect added.  If
+	 * the path already exists for a dialect in this project, then the new
+	 * snapshot will have that dialect overwritten.
+	 * 
+	 * @param dialectFilePath
+	 *   The resource path to the dialect.
+	 * @param dialectFile
+	 *   The dialect file with items already processed to include all the
+	 *   information they need for content assist queries.
+	 * @return New dialect project snapshot.
+	 */
+	DialectProject withDialect(IPath dialectFilePath, DialectFile dialectFile) {
+
+		return withDialects(Collections.singletonMap(dialectFilePath, dialectFile))
+	}
+
+	/**
+	 * Return a new snapshot of this project with all of the given dialects
+	 * added, overwriting any dialects in this project with the same paths.
+	 * 
+	 * @param dialectFiles
+	 *   The dialect files, keyed by their resource paths.
+	 * @return New dialect project snapshot.
+	 */
+	DialectProject withDialects(Map<IPath,DialectFile> dialectFiles) {
+
+		def newDialectFilePaths = new HashMap<IPath,DialectFile>((dialectFilePaths.size() + dialectFiles.size()) * 2)
+		newDialectFilePaths.putAll(dialectFilePaths)
+		newDialectFilePaths.putAll(dialectFiles)
+		return new DialectProject(newDialectFilePaths)
+	}
+
+	/**
+	 * Return a new snapshot of this project with the dialect from the given path
+	 * removed.
+	 * 
+	 * @param dialectFilePath
+	 *   The resource path to the dialect.
+	 * @return New dialect project snapshot, or this one if it didn't have the
+	 *   dialect in the first place.
+	 */
+	DialectProject withoutDialect(IPath dialectFilePath) {
+
+		if (!hasDialect(dialectFilePath)) {
+			return this
+		}
+		def newDialectFilePaths = new HashMap<IPath,DialectFile>(dialectFilePaths)
+		newDialectFilePaths.remove(dialectFilePath)
+		return new DialectProject(newDialectFilePaths)
 	}
 
 	/**
-	 * Removes a dialect from this project.
+	 * Return a new snapshot of this project with all dialects from under the
+	 * given path removed, eg: all those that came from a jar or source folder.
 	 * 
-	 * @param dialectfilepath The resource path to the dialect.
+	 * @param path
+	 * @return New dialect project snapshot, or this one if it didn't have any
+	 *   dialects under that path.
 	 */
-	void removeDialect(IPath dialectfilepath) {
+	DialectProject withoutDialectsUnder(IPath path) {
 
-		dialectFilePaths.remove(dialectfilepath)
-		attributeProcessors     = null
-		elementProcessors       = null
-		expressionObjectMethods = null
+		def newDialectFilePaths = dialectFilePaths.findAll { dialectFilePath, dialectFile ->
+			return !dialectFilePath || !path.isPrefixOf(dialectFilePath)
+		}
+		return newDialectFilePaths.size() == dialectFilePaths.size() ? this : new DialectProject(newDialectFilePaths)
 	}
 }
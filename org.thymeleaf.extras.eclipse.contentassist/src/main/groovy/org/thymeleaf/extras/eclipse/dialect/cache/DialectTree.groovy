@@ -19,69 +19,165 @@ package org.thymeleaf.extras.eclipse.dialect.cache
 import org.eclipse.core.runtime.IPath
 import org.eclipse.jdt.core.IJavaProject
 import org.thymeleaf.extras.eclipse.dialect.xml.AttributeProcessor
+import org.thymeleaf.extras.eclipse.dialect.xml.Dialect
 import org.thymeleaf.extras.eclipse.dialect.xml.DialectItem
 import org.thymeleaf.extras.eclipse.dialect.xml.ElementProcessor
+import org.thymeleaf.extras.eclipse.dialect.xml.ExpressionObject
 import org.thymeleaf.extras.eclipse.dialect.xml.ExpressionObjectMethod
+import org.w3c.dom.NamedNodeMap
 
 import jakarta.inject.Named
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
+import java.util.concurrent.FutureTask
+import java.util.concurrent.atomic.AtomicReference
 
 /**
  * Representation of all of the projects which contain dialect files found in
  * the user's workspace.  Used to better track changes made to dialect files
  * within the workspace so that the dialect cache used in content assist is kept
  * up to date.
+ * <p>
+ * Each project's dialects are held as an immutable {@link DialectProject}
+ * snapshot.  Changes build a new snapshot and swap it in atomically, so the
+ * content assist queries on the UI thread never lock, never block, and always
+ * see a complete set of dialects, even while the dialect change listener is
+ * updating them on another thread.
+ * <p>
+ * Dialects that come from jars are also kept in a workspace-wide store keyed by
+ * the identity of the jar, so that every project depending on the same jar
+ * shares the one processed copy of its dialects instead of each loading its
+ * own.
  * 
  * @author Emanuel Rabina
  */
 @Named
 class DialectTree {
 
-	private HashMap<IJavaProject,DialectProject> dialectProjects = [:]
+	private final ConcurrentHashMap<IJavaProject,AtomicReference<DialectProject>> dialectProjects = new ConcurrentHashMap<>()
+	private final ConcurrentHashMap<String,Future<DialectFile>> sharedDialectFiles = new ConcurrentHashMap<>()
 
-	// Saved project dialect item lists
-	private HashMap<IJavaProject,ArrayList<AttributeProcessor>> projectAttributeProcessors = [:]
-	private HashMap<IJavaProject,ArrayList<ElementProcessor>> projectElementProcessors = [:]
-	private HashMap<IJavaProject,ArrayList<ExpressionObjectMethod>> projectExpressionobjectMethods = [:]
+	/**
+	 * Add dialects and their associated project to the tree.  If the associated
+	 * project exists, the dialects will be added to the existing project
+	 * instead.  All of the dialects are added in the one update, so the
+	 * project's indexes are only rebuilt once for them.
+	 * 
+	 * @param project
+	 * @param dialectFiles
+	 *   The dialects, keyed by their resource paths, with their items already
+	 *   processed to include all the information they need for content assist
+	 *   queries.
+	 */
+	void addProjectDialects(IJavaProject project, Map<IPath,DialectFile> dialectFiles) {
+
+		dialectProjects
+			.computeIfAbsent(project) { key -> new AtomicReference<DialectProject>(DialectProject.EMPTY) }
+			.updateAndGet { dialectProject -> dialectProject.withDialects(dialectFiles) }
+	}
 
 	/**
-	 * Comparator for dialect items.  Dialect items are sorted in alphabetical
-	 * order, prefix first, then the processor name.
+	 * Return whether or not this tree knows about the given Java project.
+	 * 
+	 * @param project
+	 * @return <tt>true</tt> if the project has a matching entry in this tree.
 	 */
-	private static final Closure dialectItemSorter = { DialectItem item1, DialectItem item2 ->
-		def dialect1 = item1.dialect
-		def dialect2 = item2.dialect
-		return dialect1 != dialect2 ? dialect1.prefix <=> dialect2.prefix : item1.name <=> item2.name
+	boolean containsProject(IJavaProject project) {
+
+		return project && dialectProjects.containsKey(project)
 	}
 
 	/**
-	 * Add a dialect and associated project to the tree.  If the associated
-	 * project exists, the dialect will be added to the existing project
-	 * instead.
+	 * Retrieve the attribute processors for the given project whose
+	 * {@code prefix:name} or {@code data-prefix-name} forms best match the given
+	 * pattern, and whose restrictions allow them to be used in the given tag
+	 * alongside the given attributes.
 	 * 
 	 * @param project
-	 * @param dialectPath
-	 *   The resource path to the dialect.
-	 * @param dialectItems
-	 *   A list of the items in the dialect, but already processed to include all
-	 *   the information they need for content assist queries.
+	 * @param pattern
+	 * @param tagName
+	 * @param existingAttributes
+	 * @param limit
+	 * @param filter
+	 * @return List of the best matches, best first.
 	 */
-	void addProjectDialect(IJavaProject project, IPath dialectPath, List<DialectItem> dialectItems) {
+	List<DialectItemMatch<AttributeProcessor>> findAttributeProcessorMatches(IJavaProject project, String pattern,
+		String tagName, NamedNodeMap existingAttributes, int limit, Closure<Boolean> filter) {
 
-		if (!dialectProjects[project]) {
-			dialectProjects[project] = new DialectProject()
-		}
-		dialectProjects[project].addDialect(dialectPath, dialectItems)
+		return getDialectProject(project).findAttributeProcessorMatches(pattern, tagName, existingAttributes, limit, filter)
 	}
 
 	/**
-	 * Return whether or not this tree knows about the given Java project.
+	 * Retrieve the attribute processors for the given project whose
+	 * {@code prefix:name} or {@code data-prefix-name} form is exactly the given
+	 * name.
 	 * 
 	 * @param project
-	 * @return <tt>true</tt> if the project has a matching entry in this tree.
+	 * @param name
+	 * @return List of matching attribute processors, in sorted order.
 	 */
-	boolean containsProject(IJavaProject project) {
+	List<AttributeProcessor> findAttributeProcessorsByName(IJavaProject project, String name) {
 
-		return dialectProjects[project]
+		return getDialectProject(project).attributeProcessorIndex.findByName(name)
+	}
+
+	/**
+	 * Retrieve the element processors for the given project whose
+	 * {@code prefix:name} best matches the given pattern.
+	 * 
+	 * @param project
+	 * @param pattern
+	 * @param limit
+	 * @param filter
+	 * @return List of the best matches, best first.
+	 */
+	List<DialectItemMatch<ElementProcessor>> findElementProcessorMatches(IJavaProject project, String pattern,
+		int limit, Closure<Boolean> filter) {
+
+		return getDialectProject(project).elementProcessorIndex.findBestMatches(pattern, null, limit, filter)
+	}
+
+	/**
+	 * Retrieve the element processors for the given project whose
+	 * {@code prefix:name} is exactly the given name.
+	 * 
+	 * @param project
+	 * @param name
+	 * @return List of matching element processors, in sorted order.
+	 */
+	List<ElementProcessor> findElementProcessorsByName(IJavaProject project, String name) {
+
+		return getDialectProject(project).elementProcessorIndex.findByName(name)
+	}
+
+	/**
+	 * Retrieve the index of the expression object methods declared in dialect
+	 * files for the given project and expression object.
+	 * 
+	 * @param project
+	 * @param objectName
+	 *   Name of the expression object, eg: {@code #strings}.
+	 * @return Index of the declared methods of the expression object, or
+	 *   <tt>null</tt> if none are declared.
+	 */
+	DialectItemIndex<ExpressionObjectMethod> findExpressionObjectMethodIndex(IJavaProject project, String objectName) {
+
+		return getDialectProject(project).expressionObjectMethodIndexes[objectName]
+	}
+
+	/**
+	 * Retrieve the expression objects for the given project with the given
+	 * name.
+	 * 
+	 * @param project
+	 * @param objectName
+	 *   Name of the expression object, eg: {@code #strings}.
+	 * @return List of expression objects with that name, in sorted order.
+	 */
+	List<ExpressionObject> findExpressionObjectsByName(IJavaProject project, String objectName) {
+
+		return getDialectProject(project).expressionObjects[objectName] ?: []
 	}
 
 	/**
@@ -92,9 +188,30 @@ class DialectTree {
 	 */
 	List<AttributeProcessor> getAttributeProcessorsForProject(IJavaProject project) {
 
-		return projectAttributeProcessors.getOrCreate(project) { ->
-			return dialectProjects[project].attributeProcessors.sort(false, dialectItemSorter)
-		}
+		return getDialectProject(project).attributeProcessorIndex.items
+	}
+
+	/**
+	 * Retrieve all of the dialects that items for the given project come from.
+	 * 
+	 * @param project
+	 * @return Set of dialects, compared by identity.
+	 */
+	Set<Dialect> getDialectsForProject(IJavaProject project) {
+
+		return getDialectProject(project).dialects
+	}
+
+	/**
+	 * Return the current dialect snapshot for the given project.
+	 * 
+	 * @param project
+	 * @return The project's dialects, or an empty snapshot if the project isn't
+	 *   known to this tree.
+	 */
+	private DialectProject getDialectProject(IJavaProject project) {
+
+		return (project ? dialectProjects.get(project)?.get() : null) ?: DialectProject.EMPTY
 	}
 
 	/**
@@ -105,9 +222,7 @@ class DialectTree {
 	 */
 	List<ElementProcessor> getElementProcessorsForProject(IJavaProject project) {
 
-		return projectElementProcessors.getOrCreate(project) { ->
-			return dialectProjects[project].elementProcessors.sort(false, dialectItemSorter)
-		}
+		return getDialectProject(project).elementProcessorIndex.items
 	}
 
 	/**
@@ -118,8 +233,102 @@ class DialectTree {
 	 */
 	List<ExpressionObjectMethod> getExpressionObjectMethodsForProject(IJavaProject project) {
 
-		return projectExpressionobjectMethods.getOrCreate(project) { ->
-			return dialectProjects[project].expressionObjectMethods.sort(false, dialectItemSorter)
+		return getDialectProject(project).expressionObjectMethodIndex.items
+	}
+
+	/**
+	 * Retrieve the names of all expression objects for the given project,
+	 * whether the expression object itself or only some of its methods are
+	 * declared in a dialect file.
+	 * 
+	 * @param project
+	 * @return Set of expression object names, eg: {@code #strings}.
+	 */
+	Set<String> getExpressionObjectNamesForProject(IJavaProject project) {
+
+		def dialectProject = getDialectProject(project)
+		return dialectProject.expressionObjects.keySet() + dialectProject.expressionObjectMethodIndexes.keySet()
+	}
+
+	/**
+	 * Return the dialect file shared by all projects for the given identity,
+	 * creating it if this is the first time it has been asked for.  If another
+	 * thread is already creating the same dialect file, then this method waits
+	 * for and returns that one.
+	 * 
+	 * @param identity
+	 *   Identifies the exact version of the dialect resource the file is made
+	 *   from, eg: the jar it came from and that jar's size and timestamp.
+	 * @param dialectFileCreator
+	 *   Closure to create the dialect file if it doesn't exist yet.
+	 * @return The shared dialect file.
+	 */
+	DialectFile getOrCreateSharedDialectFile(String identity, Closure<DialectFile> dialectFileCreator) {
+
+		def dialectFileTask = new FutureTask<DialectFile>(dialectFileCreator)
+		def sharedDialectFile = sharedDialectFiles.putIfAbsent(identity, dialectFileTask)
+		if (!sharedDialectFile) {
+			sharedDialectFile = dialectFileTask
+			dialectFileTask.run()
+		}
+		try {
+			return sharedDialectFile.get()
+		}
+		catch (ExecutionException ex) {
+			sharedDialectFiles.remove(identity, sharedDialectFile)
+			throw ex.cause
+		}
+	}
+
+	/**
+	 * Remove shared dialect files that are no longer used by any project.
+	 */
+	private void pruneSharedDialectFiles() {
+
+		def dialectFilesInUse = Collections.newSetFromMap(new IdentityHashMap<DialectFile,Boolean>())
+		dialectProjects.values().each { dialectProjectRef ->
+			dialectFilesInUse.addAll(dialectProjectRef.get().dialectFiles)
+		}
+		sharedDialectFiles.entrySet().removeIf { entry ->
+			def sharedDialectFile = entry.value
+			if (!sharedDialectFile.done) {
+				return false
+			}
+			try {
+				return !dialectFilesInUse.contains(sharedDialectFile.get())
+			}
+			catch (ExecutionException ignored) {
+				return true
+			}
+		}
+	}
+
+	/**
+	 * Remove a project and all of its dialects from the tree.
+	 * 
+	 * @param project
+	 */
+	void removeProject(IJavaProject project) {
+
+		if (project) {
+			dialectProjects.remove(project)
+			pruneSharedDialectFiles()
+		}
+	}
+
+	/**
+	 * Remove all of a project's dialects that came from under the given path,
+	 * eg: from a jar that is no longer on the project's classpath.
+	 * 
+	 * @param project
+	 * @param path
+	 */
+	void removeProjectDialects(IJavaProject project, IPath path) {
+
+		def dialectProjectRef = project ? dialectProjects.get(project) : null
+		if (dialectProjectRef) {
+			dialectProjectRef.updateAndGet { dialectProject -> dialectProject.withoutDialectsUnder(path) }
+			pruneSharedDialectFiles()
 		}
 	}
 
@@ -132,17 +341,12 @@ class DialectTree {
 	 */
 	void updateDialect(IPath dialectFilePath, List<DialectItem> dialectItems) {
 
-		dialectProjects.each { javaProject, dialectProject ->
-			if (dialectProject.hasDialect(dialectFilePath)) {
-				if (dialectItems) {
-					dialectProject.addDialect(dialectFilePath, dialectItems)
-				}
-				else {
-					dialectProject.removeDialect(dialectFilePath)
-				}
-				projectAttributeProcessors.remove(javaProject)
-				projectElementProcessors.remove(javaProject)
-				projectExpressionobjectMethods.remove(javaProject)
+		def dialectFile = dialectItems ? new DialectFile(dialectItems) : null
+		dialectProjects.values().each { dialectProjectRef ->
+			dialectProjectRef.updateAndGet { dialectProject ->
+				return !dialectProject.hasDialect(dialectFilePath) ? dialectProject :
+					dialectFile ? dialectProject.withDialect(dialectFilePath, dialectFile) :
+					dialectProject.withoutDialect(dialectFilePath)
 			}
 		}
 	}
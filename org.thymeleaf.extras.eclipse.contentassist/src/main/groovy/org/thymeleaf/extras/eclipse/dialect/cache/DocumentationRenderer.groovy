@@ -0,0 +1,161 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.thymeleaf.extras.eclipse.dialect.cache
+
+import org.thymeleaf.extras.eclipse.dialect.xml.AttributeProcessor
+import org.thymeleaf.extras.eclipse.dialect.xml.DialectItem
+import org.thymeleaf.extras.eclipse.dialect.xml.Documentation
+
+import jakarta.inject.Named
+
+/**
+ * Renders the documentation/help text of a dialect item to the HTML shown in
+ * content assist and hovers, from a {@code <documentation>} element in a
+ * dialect XML help file, or the Javadocs of that item, along with any
+ * restrictions on where the item can be used.
+ * 
+ * @author Emanuel Rabina
+ */
+@Named
+class DocumentationRenderer {
+
+	/**
+	 * Render the documentation of a dialect item.
+	 * 
+	 * @param dialectItem
+	 * @param documentation
+	 *   The item's documentation, or <tt>null</tt> if it has none.
+	 * @return Documentation HTML, or <tt>null</tt> if there is nothing to show
+	 *   for the item.
+	 */
+	String render(DialectItem dialectItem, Documentation documentation) {
+
+		def docText = new StringBuilder()
+
+		if (documentation) {
+			docText.append(documentation.value)
+
+			// Generate 'see also' text
+			def seeAlsoSet = documentation.isSetSeeAlso()
+			if (seeAlsoSet) {
+				docText.append('<br/><dl><dt>See also:</dt><dd>')
+				def seeAlsoList = documentation.seeAlso
+				for (int i = 0; i < seeAlsoList.size(); i++) {
+					def seeAlso = seeAlsoList[i]
+					if (i > 0) {
+						docText.append(', ')
+					}
+					if (!seeAlso.contains('.') && !seeAlso.contains(':')) {
+						docText.append(dialectItem.dialect.prefix).append(':')
+					}
+					docText.append(seeAlso)
+				}
+				docText.append('</dd>')
+			}
+
+			// Generate 'document reference' text
+			def referenceSet = documentation.isSetReference()
+			if (referenceSet) {
+				docText.append(seeAlsoSet ? '<dt>' : '<br/><dl><dt>').append('Reference:</dt><dd>')
+					.append(documentation.reference).append('</dd>')
+			}
+
+			if (seeAlsoSet || referenceSet) {
+				docText.append('</dl>')
+			}
+		}
+
+		// Generate 'restrictions' text
+		if (dialectItem instanceof AttributeProcessor && dialectItem.isSetRestrictions()) {
+			def restrictions = dialectItem.restrictions
+			if (restrictions.isSetTags() || restrictions.isSetAttributes() || restrictions.isSetValues()) {
+				docText.append('<dl>')
+
+				// Tags the processor can/can't appear in
+				if (restrictions.isSetTags()) {
+					renderRestrictions(docText, restrictions.tags,
+						'Must appear in tag(s):', 'Cannot appear in tag(s):')
+				}
+
+				// Attributes the processor can/can't appear alongside
+				if (restrictions.isSetAttributes()) {
+					renderRestrictions(docText, restrictions.attributes,
+						'Must appear with attribute(s):', 'Cannot appear with attribute(s):')
+				}
+
+				// Values the processor is restricted to
+				if (restrictions.isSetValues()) {
+					docText.append('<dt>Possible value(s):</dt><dd>')
+					def values = restrictions.values
+					for (int i = 0; i < values.size(); i++) {
+						if (i > 0) {
+							docText.append(', ')
+						}
+						docText.append(values[i])
+					}
+					docText.append('</dd>')
+				}
+
+				docText.append('</dl>')
+			}
+		}
+
+		return docText.length() > 0 ? docText.toString() : null
+	}
+
+	/**
+	 * Renders the help text around attribute restriction tags/attributes.
+	 * 
+	 * @param docText
+	 *   Where to render the text to.
+	 * @param restrictions
+	 *   List of tags/attributes that the processor can/cannot appear alongside.
+	 *   Those the processor cannot appear alongside are prefixed with a
+	 *   {@code -}.
+	 * @param yesText
+	 *   Text for when the restriction indicates the processor must appear with
+	 *   that restriction.
+	 * @param noText
+	 *   Text for when the restriction indicates the processor must not appear
+	 *   with that restriction.
+	 */
+	private static void renderRestrictions(StringBuilder docText, List<String> restrictions, String yesText,
+		String noText) {
+
+		def yesTextRendered = false
+		for (def restriction: restrictions) {
+			if (!restriction.startsWith('-')) {
+				if (!yesTextRendered) {
+					docText.append('<dt>').append(yesText).append('</dt>')
+					yesTextRendered = true
+				}
+				docText.append('<dd>').append(restriction).append('</dd>')
+			}
+		}
+		def noTextRendered = false
+		for (def restriction: restrictions) {
+			if (restriction.startsWith('-')) {
+				if (!noTextRendered) {
+					docText.append('<dt>').append(noText).append('</dt>')
+					noTextRendered = true
+				}
+				docText.append('<dd>').append(restriction, 1, restriction.length()).append('</dd>')
+			}
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.dialect.cache
+
+import org.eclipse.core.resources.IFile
+import org.eclipse.jdt.core.JavaCore
+import org.eclipse.ui.IEditorPart
+import org.eclipse.ui.IFileEditorInput
+import org.eclipse.ui.IPartListener2
+import org.eclipse.ui.IWindowListener
+import org.eclipse.ui.IWorkbench
+import org.eclipse.ui.IWorkbenchPartReference
+import org.eclipse.ui.IWorkbenchWindow
+
+import jakarta.inject.Inject
+import jakarta.inject.Named
+
+/**
+ * Watches for HTML files being opened in an editor so that the dialects for
+ * the file's project can start loading before the user asks for content
+ * assist.
+ * 
+ * @author Emanuel Rabina
+ */
+@Named
+class EditorOpenListener implements IPartListener2, IWindowListener {
+
+	@Inject
+	private final DialectCache dialectCache
+
+	/**
+	 * Start listening to editors in all current and future workbench windows,
+	 * and load dialects for any HTML files that are already open.  Must be called
+	 * from the UI thread.
+	 * 
+	 * @param workbench
+	 */
+	void listen(IWorkbench workbench) {
+
+		workbench.addWindowListener(this)
+		workbench.workbenchWindows.each { window ->
+			windowOpened(window)
+			window.pages.each { page ->
+				page.editorReferences.each { editorReference ->
+					partOpened(editorReference)
+				}
+			}
+		}
+	}
+
+	/**
+	 * Load the dialects of the project the file being edited belongs to, if it
+	 * is an HTML file in a Java project.
+	 * 
+	 * @param partReference
+	 */
+	@Override
+	void partOpened(IWorkbenchPartReference partReference) {
+
+		def part = partReference.getPart(false)
+		if (part instanceof IEditorPart) {
+			def editorInput = part.editorInput
+			if (editorInput instanceof IFileEditorInput) {
+				IFile file = editorInput.file
+				if (file.fileExtension?.toLowerCase() in ['htm', 'html'] &&
+					file.project.open && file.project.hasNature(JavaCore.NATURE_ID)) {
+					dialectCache.loadDialectsFromProject(JavaCore.create(file.project))
+				}
+			}
+		}
+	}
+
+	@Override
+	void windowActivated(IWorkbenchWindow window) {
+	}
+
+	@Override
+	void windowClosed(IWorkbenchWindow window) {
+
+		window.partService.removePartListener(this)
+	}
+
+	@Override
+	void windowDeactivated(IWorkbenchWindow window) {
+	}
+
+	@Override
+	void windowOpened(IWorkbenchWindow window) {
+
+		window.partService.addPartListener(this)
+	}
+}
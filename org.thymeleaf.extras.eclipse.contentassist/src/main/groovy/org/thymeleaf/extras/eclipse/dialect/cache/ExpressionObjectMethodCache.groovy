@@ -0,0 +1,307 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.dialect.cache
+
+import org.eclipse.jdt.core.ElementChangedEvent
+import org.eclipse.jdt.core.Flags
+import org.eclipse.jdt.core.IElementChangedListener
+import org.eclipse.jdt.core.IJavaElement
+import org.eclipse.jdt.core.IJavaElementDelta
+import org.eclipse.jdt.core.IJavaProject
+import org.eclipse.jdt.core.IType
+import org.eclipse.jdt.core.ITypeRoot
+import org.eclipse.jdt.core.JavaCore
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import org.thymeleaf.extras.eclipse.dialect.xml.ExpressionObject
+import org.thymeleaf.extras.eclipse.dialect.xml.ExpressionObjectMethod
+import static org.eclipse.jdt.core.IJavaElementDelta.*
+
+import groovy.transform.TupleConstructor
+import jakarta.annotation.PostConstruct
+import jakarta.annotation.PreDestroy
+import jakarta.inject.Inject
+import jakarta.inject.Named
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.FutureTask
+
+/**
+ * A cache of the methods available on the classes of expression objects, for
+ * content assist on expression object methods.
+ * <p>
+ * The methods of a class, including those it inherits, are only worked out
+ * the first time content assist asks for them.  As that needs the class's type
+ * hierarchy, which can take a while to compute, it's done in the background
+ * on a thread of this cache's own, with content assist getting nothing for
+ * that class until it's done.  The shared scan executor isn't used for this,
+ * as it runs work on the calling thread when it's busy, and the caller here is
+ * the UI thread.  The methods are then kept until the source or class file of
+ * the class, or of any class it inherits from, changes.  A class whose methods
+ * couldn't be worked out isn't tried again until its own source or class file
+ * changes.
+ * <p>
+ * Expression object classes are found through the {@link ProjectTypeCache}, so
+ * that content assist on an expression object doesn't search the project's
+ * classpath every time.
+ * 
+ * @author Emanuel Rabina
+ */
+@Named
+class ExpressionObjectMethodCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(ExpressionObjectMethodCache)
+
+	@Inject
+	private final ProjectTypeCache projectTypeCache
+
+	private final ExecutorService typeMethodsExecutor = Executors.newSingleThreadExecutor()
+	private final ConcurrentHashMap<IType,Future<TypeMethods>> typeMethods = new ConcurrentHashMap<>()
+
+	// Method items made for each expression object from the methods of its
+	// class, kept only for as long as the expression object is
+	private final Map<ExpressionObject,Tuple2<TypeMethods,DialectItemIndex<ExpressionObjectMethod>>> methodIndexes =
+		Collections.synchronizedMap(new WeakHashMap<ExpressionObject,Tuple2<TypeMethods,DialectItemIndex<ExpressionObjectMethod>>>())
+
+	/**
+	 * Drop the methods of types whose source, class file, or any of whose
+	 * supertypes' source or class files, have changed.
+	 */
+	private final IElementChangedListener javaElementChangeListener = { ElementChangedEvent event ->
+		invalidate(event.delta)
+	} as IElementChangedListener
+
+	/**
+	 * Stop listening for Java element changes, and stop the executor for
+	 * working out type methods.
+	 */
+	@PreDestroy
+	void close() {
+
+		JavaCore.removeElementChangedListener(javaElementChangeListener)
+		typeMethodsExecutor.shutdownAwaitTermination()
+	}
+
+	/**
+	 * Create the content assist item for a method of an expression object,
+	 * converting Java bean methods into properties.
+	 * 
+	 * @param expressionObject
+	 * @param methodName
+	 * @return
+	 */
+	private static ExpressionObjectMethod createExpressionObjectMethod(ExpressionObject expressionObject,
+		String methodName) {
+
+		def expressionObjectMethod = new ExpressionObjectMethod(
+			dialect: expressionObject.dialect
+		)
+
+		def propertyPoint =
+			methodName.startsWith('get') || methodName.startsWith('set') ? 3 :
+			methodName.startsWith('is') ? 2 :
+			-1
+
+		if (propertyPoint != -1 && methodName.length() > propertyPoint &&
+			Character.isUpperCase(methodName.charAt(propertyPoint))) {
+
+			def propertyName = new StringBuilder(methodName.substring(propertyPoint))
+			propertyName.setCharAt(0, Character.toLowerCase(propertyName.charAt(0)))
+			expressionObjectMethod.name = "${expressionObject.name}.${propertyName}"
+			expressionObjectMethod.javaBeanProperty = true
+		}
+		else {
+			expressionObjectMethod.name = "${expressionObject.name}.${methodName}"
+		}
+
+		return expressionObjectMethod
+	}
+
+	/**
+	 * Return an index over the methods of an expression object's class,
+	 * including any methods it inherits.  If this is the first time the
+	 * methods of that class have been asked for, then they are worked out in
+	 * the background and nothing is returned for now.
+	 * 
+	 * @param project
+	 * @param expressionObject
+	 * @return Index of the expression object's methods, or <tt>null</tt> if the
+	 *   class couldn't be found or its methods are still being worked out.
+	 */
+	DialectItemIndex<ExpressionObjectMethod> getMethodIndex(IJavaProject project, ExpressionObject expressionObject) {
+
+		def type = expressionObject.isSetClazz() && project ?
+			projectTypeCache.findType(project, expressionObject.clazz) :
+			null
+		if (!type) {
+			return null
+		}
+
+		// The task is only started once it's in the map, so that the work isn't
+		// done while holding a lock on the map
+		def typeMethodsFuture = typeMethods.get(type)
+		if (typeMethodsFuture == null) {
+			def typeMethodsTask = new FutureTask<TypeMethods>({ ->
+				try {
+					return readTypeMethods(type)
+				}
+				catch (Exception ex) {
+					logger.warn("Unable to read the methods of ${type.fullyQualifiedName}", ex)
+					throw ex
+				}
+			} as Callable<TypeMethods>)
+			typeMethodsFuture = typeMethods.putIfAbsent(type, typeMethodsTask)
+			if (typeMethodsFuture == null) {
+				typeMethodsFuture = typeMethodsTask
+				typeMethodsExecutor.execute(typeMethodsTask)
+			}
+		}
+		if (!typeMethodsFuture.done) {
+			return null
+		}
+		TypeMethods methods
+		try {
+			methods = typeMethodsFuture.get()
+		}
+		catch (ExecutionException ignored) {
+			return null
+		}
+
+		// Re-create the method items if the methods of the class have changed
+		def methodIndex = methodIndexes.get(expressionObject)
+		if (methodIndex == null || !methodIndex.v1.is(methods)) {
+			def expressionObjectMethods = new ArrayList<ExpressionObjectMethod>(methods.methodNames.size())
+			def seenNames = new HashSet<String>()
+			methods.methodNames.each { methodName ->
+				def expressionObjectMethod = createExpressionObjectMethod(expressionObject, methodName)
+				if (seenNames.add(expressionObjectMethod.name)) {
+					expressionObjectMethods << expressionObjectMethod
+				}
+			}
+			expressionObjectMethods.sort { method1, method2 -> method1.name <=> method2.name }
+			methodIndex = new Tuple2<TypeMethods,DialectItemIndex<ExpressionObjectMethod>>(methods,
+				new DialectItemIndex<ExpressionObjectMethod>(expressionObjectMethods,
+					{ ExpressionObjectMethod method -> [method.fullName] }))
+			methodIndexes.put(expressionObject, methodIndex)
+		}
+		return methodIndex.v2
+	}
+
+	/**
+	 * Start listening for Java element changes.
+	 */
+	@PostConstruct
+	void init() {
+
+		JavaCore.addElementChangedListener(javaElementChangeListener, ElementChangedEvent.POST_CHANGE)
+	}
+
+	/**
+	 * Walk a Java element delta, dropping the methods of any types affected by
+	 * it.  Changes to source and class files drop the types with any of those
+	 * files in their hierarchy, while changes to the classpath or the contents
+	 * of a jar drop the types with anything in their hierarchy underneath the
+	 * changed element.
+	 * 
+	 * @param delta
+	 */
+	private void invalidate(IJavaElementDelta delta) {
+
+		def element = delta.element
+		if (element instanceof ITypeRoot) {
+			removeTypesDependingOn(element)
+		}
+		else if (delta.kind == IJavaElementDelta.REMOVED || delta.flags & (F_CLASSPATH_CHANGED |
+			F_RESOLVED_CLASSPATH_CHANGED | F_ARCHIVE_CONTENT_CHANGED | F_REMOVED_FROM_CLASSPATH | F_CLOSED)) {
+			removeTypesDependingOn(element)
+		}
+		else {
+			delta.affectedChildren.each { childDelta ->
+				invalidate(childDelta)
+			}
+		}
+	}
+
+	/**
+	 * Work out the names of all the methods of a type, including those from its
+	 * supertypes other than {@link Object}.
+	 * 
+	 * @param type
+	 * @return
+	 */
+	private static TypeMethods readTypeMethods(IType type) {
+
+		def hierarchy = type.newSupertypeHierarchy(null)
+		def hierarchyTypes = new LinkedHashSet<IType>()
+		hierarchyTypes << type
+		hierarchy.getAllSupertypes(type).each { supertype ->
+			if (supertype.fullyQualifiedName != Object.name) {
+				hierarchyTypes << supertype
+			}
+		}
+
+		def methodNames = new LinkedHashSet<String>()
+		hierarchyTypes.each { hierarchyType ->
+			hierarchyType.methods.each { method ->
+				if (!method.constructor && !Flags.isPrivate(method.flags)) {
+					methodNames << method.elementName
+				}
+			}
+		}
+		return new TypeMethods(new ArrayList<String>(methodNames), hierarchyTypes)
+	}
+
+	/**
+	 * Remove the methods of all types which have anything in their hierarchy
+	 * that is, or is contained within, the given element.  Types whose methods
+	 * are still being worked out, or couldn't be, have only the type itself
+	 * checked.
+	 * 
+	 * @param element
+	 */
+	private void removeTypesDependingOn(IJavaElement element) {
+
+		typeMethods.entrySet().removeIf { entry ->
+			def typeMethodsFuture = entry.value
+			if (typeMethodsFuture.done) {
+				try {
+					return typeMethodsFuture.get().hierarchyTypes.any { hierarchyType ->
+						return hierarchyType.getAncestor(element.elementType) == element
+					}
+				}
+				catch (ExecutionException ignored) {
+					// No hierarchy to check, so fall through to checking just the type
+				}
+			}
+			return entry.key.getAncestor(element.elementType) == element
+		}
+	}
+
+	/**
+	 * The methods of a type, and all of the types they came from.
+	 */
+	@TupleConstructor(defaults = false)
+	private static class TypeMethods {
+
+		final List<String> methodNames
+		final Set<IType> hierarchyTypes
+	}
+}
@@ -0,0 +1,201 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.thymeleaf.extras.eclipse.dialect.cache
+
+import org.eclipse.jdt.core.ElementChangedEvent
+import org.eclipse.jdt.core.IElementChangedListener
+import org.eclipse.jdt.core.IJavaElement
+import org.eclipse.jdt.core.IJavaElementDelta
+import org.eclipse.jdt.core.IJavaProject
+import org.eclipse.jdt.core.IType
+import org.eclipse.jdt.core.ITypeRoot
+import org.eclipse.jdt.core.JavaCore
+import org.eclipse.jdt.ui.JavadocContentAccess
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import static org.eclipse.jdt.core.IJavaElementDelta.*
+
+import jakarta.annotation.PostConstruct
+import jakarta.annotation.PreDestroy
+import jakarta.inject.Inject
+import jakarta.inject.Named
+
+/**
+ * A bounded cache of the Javadoc HTML content of processor classes, so that
+ * Javadocs are only ever read when a proposal or hover first asks for them,
+ * and then only the once.  The least recently used entries are dropped when
+ * the cache is full, and entries are dropped when the source or class file of
+ * their type changes.
+ * <p>
+ * Classes named by processors are found through the {@link ProjectTypeCache},
+ * so that getting the Javadocs of a class already looked up doesn't need a
+ * search of the project's classpath.
+ * 
+ * @author Emanuel Rabina
+ */
+@Named
+class JavadocCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(JavadocCache)
+
+	static final int MAX_ENTRIES = 256
+
+	// Types without Javadocs are remembered too, so they aren't looked up again
+	private static final String NO_JAVADOC = ''
+
+	private final LinkedHashMap<IType,String> javadocs = new LinkedHashMap<IType,String>(MAX_ENTRIES, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<IType,String> eldest) {
+			return size() > MAX_ENTRIES
+		}
+	}
+
+	@Inject
+	private final ProjectTypeCache projectTypeCache
+
+	/**
+	 * Drop the Javadocs of types whose source, class file, package fragment
+	 * root or project has changed.
+	 */
+	private final IElementChangedListener javaElementChangeListener = { ElementChangedEvent event ->
+		invalidate(event.delta)
+	} as IElementChangedListener
+
+	/**
+	 * Stop listening for Java element changes.
+	 */
+	@PreDestroy
+	void close() {
+
+		JavaCore.removeElementChangedListener(javaElementChangeListener)
+	}
+
+	/**
+	 * Return the Javadoc HTML content of the given type, reading it in if this
+	 * is the first time it has been asked for.
+	 * 
+	 * @param type
+	 * @return Javadoc HTML content, or <tt>null</tt> if the type has no
+	 *   Javadocs or they couldn't be read.
+	 */
+	String getJavadoc(IType type) {
+
+		String javadoc
+		synchronized (javadocs) {
+			javadoc = javadocs.get(type)
+		}
+		if (javadoc == null) {
+			javadoc = readJavadoc(type)
+			synchronized (javadocs) {
+				javadocs.put(type, javadoc)
+			}
+		}
+		return javadoc ?: null
+	}
+
+	/**
+	 * Return the Javadoc HTML content of the class with the given name in a
+	 * project, finding the class if this is the first time it has been asked
+	 * for.
+	 * 
+	 * @param project
+	 * @param className Fully qualified name of the class.
+	 * @return Javadoc HTML content, or <tt>null</tt> if the class couldn't be
+	 *   found, has no Javadocs, or they couldn't be read.
+	 */
+	String getJavadoc(IJavaProject project, String className) {
+
+		def type = projectTypeCache.findType(project, className)
+		return type ? getJavadoc(type) : null
+	}
+
+	/**
+	 * Start listening for Java element changes.
+	 */
+	@PostConstruct
+	void init() {
+
+		JavaCore.addElementChangedListener(javaElementChangeListener, ElementChangedEvent.POST_CHANGE)
+	}
+
+	/**
+	 * Walk a Java element delta, dropping the Javadocs of any types affected by
+	 * it.  Changes to source and class files drop just the types in those
+	 * files, while changes to the classpath or the contents of a jar drop all
+	 * of the types underneath the changed element.
+	 * 
+	 * @param delta
+	 */
+	private void invalidate(IJavaElementDelta delta) {
+
+		def element = delta.element
+		if (element instanceof ITypeRoot) {
+			removeTypesUnder(element)
+		}
+		else if (delta.kind == IJavaElementDelta.REMOVED || delta.flags & (F_CLASSPATH_CHANGED |
+			F_RESOLVED_CLASSPATH_CHANGED | F_ARCHIVE_CONTENT_CHANGED | F_REMOVED_FROM_CLASSPATH | F_CLOSED)) {
+			removeTypesUnder(element)
+		}
+		else {
+			delta.affectedChildren.each { childDelta ->
+				invalidate(childDelta)
+			}
+		}
+	}
+
+	/**
+	 * Read the Javadoc HTML content of a type.
+	 * 
+	 * @param type
+	 * @return Javadoc HTML content, or {@link #NO_JAVADOC} if the type has no
+	 *   Javadocs.
+	 */
+	private static String readJavadoc(IType type) {
+
+		try {
+			return JavadocContentAccess.getHTMLContentReader(type, false, false)?.withReader { reader ->
+				def javadoc = new StringBuilder()
+				def buffer = new char[8192]
+				int read
+				while ((read = reader.read(buffer)) != -1) {
+					javadoc.append(buffer, 0, read)
+				}
+				return javadoc.toString()
+			} ?: NO_JAVADOC
+		}
+		catch (Exception ex) {
+			logger.warn("Unable to read Javadocs of ${type.fullyQualifiedName}", ex)
+			return NO_JAVADOC
+		}
+	}
+
+	/**
+	 * Remove the Javadocs of all types which are, or are contained within, the
+	 * given element.
+	 * 
+	 * @param element
+	 */
+	private void removeTypesUnder(IJavaElement element) {
+
+		synchronized (javadocs) {
+			javadocs.keySet().removeIf { type ->
+				return type.getAncestor(element.elementType) == element
+			}
+		}
+	}
+}
@@ -0,0 +1,168 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.dialect.cache
+
+/**
+ * Matches what has been typed so far against a dialect item name, and rates
+ * how good of a match it is.  Names are split into words on the separators
+ * used in processor and expression object names, and on changes to
+ * upper case, so that typing the start of each word can find a name, eg:
+ * {@code #d.cN} finds {@code #dates.createNow}.
+ * <p>
+ * All of the work on the name is done once when the matcher is created, so
+ * that a matcher can be kept with the name and be used for many queries.
+ * Matching ignores case, and expects the pattern to have already been turned
+ * to lower case.
+ * 
+ * @author Emanuel Rabina
+ */
+class NameMatcher {
+
+	private static final String SEPARATORS = ':-.#'
+
+	static final int NO_MATCH    = 0
+	static final int SUBSTRING   = 1
+	static final int WORD_STARTS = 2
+	static final int PREFIX      = 3
+	static final int EXACT       = 4
+
+	private final String name
+	private final boolean[] wordStarts
+
+	/**
+	 * Constructor, prepare the given name for matching.
+	 * 
+	 * @param name
+	 */
+	NameMatcher(String name) {
+
+		this.name = name.toLowerCase()
+
+		wordStarts = new boolean[name.length()]
+		for (int i = 0; i < name.length(); i++) {
+			def c = name.charAt(i)
+			def previous = i > 0 ? name.charAt(i - 1) : (char)0
+			wordStarts[i] = i == 0 || isSeparator(c) || isSeparator(previous) ||
+				(Character.isUpperCase(c) && !Character.isUpperCase(previous))
+		}
+	}
+
+	/**
+	 * Return whether a character separates the words of a name.
+	 * 
+	 * @param c
+	 * @return
+	 */
+	private static boolean isSeparator(char c) {
+
+		return SEPARATORS.indexOf((int)c) != -1
+	}
+
+	/**
+	 * Rate how well the given pattern matches the name.  An empty pattern
+	 * matches every name as a prefix.
+	 * 
+	 * @param pattern
+	 *   What has been typed so far, in lower case.
+	 * @return One of {@link #EXACT}, {@link #PREFIX}, {@link #WORD_STARTS},
+	 *   {@link #SUBSTRING}, or {@link #NO_MATCH} if the pattern doesn't match
+	 *   at all, from best to worst.
+	 */
+	int match(String pattern) {
+
+		if (name == pattern) {
+			return EXACT
+		}
+		if (name.startsWith(pattern)) {
+			return PREFIX
+		}
+		if (matchWordStarts(pattern, 0, 0)) {
+			return WORD_STARTS
+		}
+
+		// Anything up to the last separator in the pattern, like the dialect
+		// prefix, needs to be at the start of the name, with the rest of the
+		// pattern found anywhere after it
+		def headLength = 0
+		for (int i = pattern.length() - 1; i >= 0; i--) {
+			if (isSeparator(pattern.charAt(i))) {
+				headLength = i + 1
+				break
+			}
+		}
+		if (headLength == 0) {
+			return name.contains(pattern) ? SUBSTRING : NO_MATCH
+		}
+		return name.startsWith(pattern.substring(0, headLength)) &&
+			name.indexOf(pattern.substring(headLength), headLength) != -1 ? SUBSTRING : NO_MATCH
+	}
+
+	/**
+	 * Return whether the given pattern, in any case, matches the name in any
+	 * way.
+	 * 
+	 * @param pattern
+	 * @return <tt>true</tt> if the pattern matches the name.
+	 */
+	boolean matches(String pattern) {
+
+		return match(pattern.toLowerCase()) != NO_MATCH
+	}
+
+	/**
+	 * Return whether the given pattern matches the given name in any way.  For
+	 * one-off checks only, as the name is prepared for matching every time.
+	 * 
+	 * @param name
+	 * @param pattern
+	 * @return <tt>true</tt> if the pattern matches the name.
+	 */
+	static boolean matches(String name, String pattern) {
+
+		return new NameMatcher(name).matches(pattern)
+	}
+
+	/**
+	 * Match the rest of the pattern against the rest of the name, where each
+	 * pattern character either carries on from the last one matched, or starts
+	 * a word later in the name.
+	 * 
+	 * @param pattern
+	 * @param patternIndex
+	 *   Position in the pattern to match from.
+	 * @param nameIndex
+	 *   Position in the name just after the last matched character.
+	 * @return <tt>true</tt> if the rest of the pattern matches.
+	 */
+	private boolean matchWordStarts(String pattern, int patternIndex, int nameIndex) {
+
+		if (patternIndex == pattern.length()) {
+			return true
+		}
+		def c = pattern.charAt(patternIndex)
+		if (patternIndex > 0 && nameIndex < name.length() && name.charAt(nameIndex) == c &&
+			matchWordStarts(pattern, patternIndex + 1, nameIndex + 1)) {
+			return true
+		}
+		for (int i = nameIndex; i < name.length(); i++) {
+			if (wordStarts[i] && name.charAt(i) == c && matchWordStarts(pattern, patternIndex + 1, i + 1)) {
+				return true
+			}
+		}
+		return false
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.dialect.cache
+
+import org.eclipse.jdt.core.ElementChangedEvent
+import org.eclipse.jdt.core.IElementChangedListener
+import org.eclipse.jdt.core.IJavaElementDelta
+import org.eclipse.jdt.core.IJavaProject
+import org.eclipse.jdt.core.IType
+import org.eclipse.jdt.core.ITypeRoot
+import org.eclipse.jdt.core.JavaCore
+import static org.eclipse.jdt.core.IJavaElementDelta.*
+
+import jakarta.annotation.PostConstruct
+import jakarta.annotation.PreDestroy
+import jakarta.inject.Named
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * A cache of the types found for class names in each project, so that the
+ * classes named by dialect items only need a search of the project's classpath
+ * the first time they are looked up.  Class names that couldn't be found are
+ * remembered too.  Everything is dropped whenever types could have come or
+ * gone, ie: when source or class files are added or removed, or when a
+ * classpath changes.
+ *
+ * @author Emanuel Rabina
+ */
+@Named
+class ProjectTypeCache {
+
+	private final ConcurrentHashMap<IJavaProject,ConcurrentHashMap<String,Optional<IType>>> projectTypes =
+		new ConcurrentHashMap<>()
+
+	/**
+	 * Drop the found types whenever types could have been added or removed.
+	 */
+	private final IElementChangedListener javaElementChangeListener = { ElementChangedEvent event ->
+		invalidate(event.delta)
+	} as IElementChangedListener
+
+	/**
+	 * Stop listening for Java element changes.
+	 */
+	@PreDestroy
+	void close() {
+
+		JavaCore.removeElementChangedListener(javaElementChangeListener)
+	}
+
+	/**
+	 * Return the type with the given name in a project, searching the project's
+	 * classpath for it if this is the first time it has been asked for.
+	 *
+	 * @param project
+	 * @param className Fully qualified name of the class.
+	 * @return The type, or <tt>null</tt> if the class couldn't be found.
+	 */
+	IType findType(IJavaProject project, String className) {
+
+		def types = projectTypes.computeIfAbsent(project) { key -> new ConcurrentHashMap<>() }
+		def type = types.get(className)
+		if (type == null) {
+			type = Optional.ofNullable(project.findType(className))
+			types.put(className, type)
+		}
+		return type.orElse(null)
+	}
+
+	/**
+	 * Start listening for Java element changes.
+	 */
+	@PostConstruct
+	void init() {
+
+		JavaCore.addElementChangedListener(javaElementChangeListener, ElementChangedEvent.POST_CHANGE)
+	}
+
+	/**
+	 * Walk a Java element delta, dropping all of the found types on any change
+	 * that could add or remove types.
+	 *
+	 * @param delta
+	 */
+	private void invalidate(IJavaElementDelta delta) {
+
+		def element = delta.element
+		if (element instanceof ITypeRoot) {
+			if (delta.kind != IJavaElementDelta.CHANGED) {
+				projectTypes.clear()
+			}
+		}
+		else if (delta.kind == IJavaElementDelta.REMOVED || delta.flags & (F_CLASSPATH_CHANGED |
+			F_RESOLVED_CLASSPATH_CHANGED | F_ARCHIVE_CONTENT_CHANGED | F_REMOVED_FROM_CLASSPATH | F_CLOSED)) {
+			projectTypes.clear()
+		}
+		else {
+			delta.affectedChildren.each { childDelta ->
+				invalidate(childDelta)
+			}
+		}
+	}
+}
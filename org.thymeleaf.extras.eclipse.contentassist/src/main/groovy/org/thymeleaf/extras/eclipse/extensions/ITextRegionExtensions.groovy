@@ -36,4 +36,15 @@ class ITextRegionExtensions {
 
 		return self.type == DOMRegionContext.XML_TAG_ATTRIBUTE_NAME
 	}
+
+	/**
+	 * Return whether this text region represents the value of an XML attribute.
+	 * 
+	 * @param self
+	 * @return
+	 */
+	static boolean isXmlAttributeValue(ITextRegion self) {
+
+		return self.type == DOMRegionContext.XML_TAG_ATTRIBUTE_VALUE
+	}
 }
@@ -30,12 +30,13 @@ import javax.xml.namespace.QName
 class NodeExtensions {
 
 	/**
-	 * Return a list of the namespaces which are known at the given node.
+	 * Return a list of the namespaces declared on the given node itself, not
+	 * including any declared on its ancestors.
 	 * 
 	 * @param self
-	 * @return List of namespaces known to this node.
+	 * @return List of namespaces declared by this node.
 	 */
-	static List<QName> getKnownNamespaces(Node self) {
+	static List<QName> getDeclaredNamespaces(Node self) {
 
 		def namespaces = []
 
@@ -48,6 +49,20 @@ class NodeExtensions {
 				}
 			}
 		}
+
+		return namespaces
+	}
+
+	/**
+	 * Return a list of the namespaces which are known at the given node.
+	 * 
+	 * @param self
+	 * @return List of namespaces known to this node.
+	 */
+	static List<QName> getKnownNamespaces(Node self) {
+
+		def namespaces = self.declaredNamespaces
+
 		def parent = self.parentNode
 		if (parent) {
 			namespaces.addAll(parent.knownNamespaces)
@@ -16,6 +16,7 @@
 
 package org.thymeleaf.extras.eclipse.hover
 
+import org.eclipse.jdt.core.IJavaProject
 import org.eclipse.jface.text.DefaultInformationControl
 import org.eclipse.jface.text.IInformationControl
 import org.eclipse.jface.text.IInformationControlCreator
@@ -28,38 +29,47 @@ import org.eclipse.ui.IWorkbench
 import org.eclipse.wst.sse.ui.internal.derived.HTMLTextPresenter
 import org.thymeleaf.extras.eclipse.ContentAssistPlugin
 import org.thymeleaf.extras.eclipse.dialect.cache.DialectCache
+import org.thymeleaf.extras.eclipse.template.cache.TemplateCache
+import org.thymeleaf.extras.eclipse.template.model.FragmentReference
+import org.w3c.dom.Node
 
 /**
- * Documentation-on-hover creator for Thymeleaf processors.
+ * Documentation-on-hover creator for Thymeleaf processors, and for the
+ * templates and fragments named in {@code th:insert}, {@code th:replace}, and
+ * {@code th:include} attributes.
  * 
  * @author Emanuel Rabina
  */
 class InfoHoverComputer implements ITextHover, ITextHoverExtension {
 
 	private final DialectCache dialectCache
+	private final TemplateCache templateCache
 	private final IWorkbench workbench
 
 	/**
 	 * Constructor, used by Eclipse to create an instance of this class so
-	 * defaults to using the dialect cache via direct access to the Spring
-	 * container instance, and the current workbench via static access to the
+	 * defaults to using the dialect and template caches via direct access to
+	 * the Spring container instance, and the current workbench via static access to the
 	 * plugin.
 	 */
 	InfoHoverComputer() {
 
-		this(ContentAssistPlugin.default.getBean(DialectCache), ContentAssistPlugin.default.getBean(IWorkbench))
+		this(ContentAssistPlugin.default.getBean(DialectCache), ContentAssistPlugin.default.getBean(TemplateCache),
+			ContentAssistPlugin.default.getBean(IWorkbench))
 	}
 
 	/**
-	 * Constructor, create a new hover computer with the specified dialect cache
-	 * and workbench.
+	 * Constructor, create a new hover computer with the specified dialect
+	 * cache, template cache, and workbench.
 	 * 
 	 * @param dialectCache
+	 * @param templateCache
 	 * @param workbench
 	 */
-	InfoHoverComputer(DialectCache dialectCache, IWorkbench workbench) {
+	InfoHoverComputer(DialectCache dialectCache, TemplateCache templateCache, IWorkbench workbench) {
 
 		this.dialectCache = dialectCache
+		this.templateCache = templateCache
 		this.workbench = workbench
 	}
 
@@ -87,8 +97,11 @@ class InfoHoverComputer implements ITextHover, ITextHoverExtension {
 			def surroundingWord = textViewer.document.get(cursorPosition, hoverRegion.length)
 
 			if (surroundingWord ==~ /[\w:-]*/) {
-				def processor = dialectCache.getProcessor(workbench.currentJavaProject, node.knownNamespaces, surroundingWord)
-				return processor?.documentation?.value
+				def project = workbench.currentJavaProject
+				def processor = dialectCache.getProcessor(project, node.knownNamespaces, surroundingWord)
+				return processor ?
+					dialectCache.getDocumentation(project, processor) :
+					getFragmentHoverInfo(project, node, surroundingWord)
 			}
 
 			// NOTE: The HTML editor currently doesn't give a precise enough offset
@@ -106,6 +119,51 @@ class InfoHoverComputer implements ITextHover, ITextHoverExtension {
 		return hoverInfo
 	}
 
+	/**
+	 * Return the documentation for the template or fragment named by the given
+	 * word in one of the fragment expressions of an element.
+	 * 
+	 * @param project
+	 * @param node
+	 * @param word
+	 * @return Documentation HTML, or <tt>null</tt> if the word isn't the name of
+	 *   a known template or fragment in any of the element's fragment
+	 *   expressions.
+	 */
+	private String getFragmentHoverInfo(IJavaProject project, Node node, String word) {
+
+		if (!word) {
+			return null
+		}
+		def fragmentIndex = templateCache.getFragmentIndex(project)
+		if (!fragmentIndex) {
+			return null
+		}
+
+		def attributes = node.attributes
+		for (int i = 0; i < attributes.length; i++) {
+			def attribute = attributes.item(i)
+			if (!FragmentReference.isFragmentIncludeAttribute(attribute.nodeName)) {
+				continue
+			}
+			def reference = FragmentReference.parse(attribute.nodeValue)
+			def template = fragmentIndex.findTemplate(reference.templateName)
+			if (!template) {
+				continue
+			}
+			if (reference.fragmentName == word) {
+				def fragment = template.getFragment(word)
+				if (fragment) {
+					return templateCache.getDocumentation(template, fragment)
+				}
+			}
+			else if (template.name == word || template.name.endsWith("/${word}")) {
+				return templateCache.getDocumentation(template, null)
+			}
+		}
+		return null
+	}
+
 	/**
 	 * Override so as to use the default hover region.
 	 * 
@@ -18,6 +18,9 @@ package org.thymeleaf.extras.eclipse.nature
 
 import org.eclipse.core.resources.IProject
 import org.eclipse.core.resources.IProjectNature
+import org.eclipse.jdt.core.JavaCore
+import org.thymeleaf.extras.eclipse.ContentAssistPlugin
+import org.thymeleaf.extras.eclipse.dialect.cache.DialectCache
 
 /**
  * Configures a project that has been given the Thymeleaf nature.
@@ -40,6 +43,9 @@ class ThymeleafNature implements IProjectNature {
 		newCommand.setBuilderName(THYMELEAF_BUILDER_ID)
 		description.buildSpec = description.buildSpec + newCommand
 		project.setDescription(description, null)
+
+		// Get a head start on loading the dialects for content assist
+		ContentAssistPlugin.default.getBean(DialectCache).loadDialectsFromProject(JavaCore.create(project))
 	}
 
 	@Override
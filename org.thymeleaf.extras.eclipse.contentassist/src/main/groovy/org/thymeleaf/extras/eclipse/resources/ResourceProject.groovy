@@ -18,16 +18,19 @@ package org.thymeleaf.extras.eclipse.resources
 
 import org.eclipse.core.runtime.IPath
 
+import java.util.concurrent.ConcurrentHashMap
+
 /**
  * Representation of a project that contains one or more files which contain
- * specific resource information.
+ * specific resource information.  Resources can be added and removed while
+ * others are reading them.
  * 
  * @param <T> The resource being mapped against a project.
  * @author Emanuel Rabina
  */
 class ResourceProject<T> {
 
-	private final HashMap<IPath,T> files = new HashMap<IPath,T>()
+	private final ConcurrentHashMap<IPath,T> files = new ConcurrentHashMap<IPath,T>()
 
 	/**
 	 * Adds a resource to this project.  If the path already exists for the
@@ -41,6 +44,18 @@ class ResourceProject<T> {
 		files.put(path, resource)
 	}
 
+	/**
+	 * Return the resource at the given path.
+	 * 
+	 * @param path
+	 * @return The resource, or <tt>null</tt> if this project has no resource at
+	 *         that path.
+	 */
+	T getResource(IPath path) {
+
+		return files.get(path)
+	}
+
 	/**
 	 * Return all resources associated with this project.
 	 * 
@@ -20,10 +20,15 @@ import org.eclipse.core.runtime.IPath
 import org.eclipse.jdt.core.IJavaProject
 
 import jakarta.inject.Named
+import java.util.concurrent.ConcurrentHashMap
 
 /**
  * Generic representation of resources in a developer's workspace, divided-up by
  * projects.
+ * <p>
+ * The tree can be read and updated from any thread, so that resources can be
+ * kept up to date by resource change listeners while content assist is
+ * reading them.
  * 
  * @param <T> The resource being mapped against a project.
  * @author Emanuel Rabina
@@ -31,7 +36,7 @@ import jakarta.inject.Named
 @Named
 class ResourceTree<T> {
 
-	private HashMap<IJavaProject,ResourceProject<T>> projects = [:]
+	private final ConcurrentHashMap<IJavaProject,ResourceProject<T>> projects = new ConcurrentHashMap<>()
 
 	/**
 	 * Add a project and an associated resource to the tree.  If the project
@@ -43,10 +48,7 @@ class ResourceTree<T> {
 	 */
 	void addResourceToProject(IJavaProject project, IPath path, T resource) {
 
-		if (!containsProject(project)) {
-			projects[project, new ResourceProject<T>()]
-		}
-		projects[project].addResource(path, resource)
+		getOrCreateProject(project).addResource(path, resource)
 	}
 
 	/**
@@ -54,16 +56,14 @@ class ResourceTree<T> {
 	 * exists, the resources will be added to the existing project instead.
 	 * 
 	 * @param project
-	 * @param path      The path to the resource.
-	 * @param resources List of resources to associate with the project.
+	 * @param resources Map of resources to associate with the project, keyed by
+	 *                  the paths to those resources.  Can be empty to only add
+	 *                  the project.
 	 */
-	void addResourcesToProject(IJavaProject project, IPath path, List<T> resources) {
+	void addResourcesToProject(IJavaProject project, Map<IPath,T> resources) {
 
-		if (!containsProject(project)) {
-			projects[project, new ResourceProject<T>()]
-		}
-		def resourceProject = projects[project]
-		resources.each { resource ->
+		def resourceProject = getOrCreateProject(project)
+		resources.each { path, resource ->
 			resourceProject.addResource(path, resource)
 		}
 	}
@@ -76,17 +76,63 @@ class ResourceTree<T> {
 	 */
 	boolean containsProject(IJavaProject project) {
 
-		return projects.containsKey(project)
+		return project && projects.containsKey(project)
+	}
+
+	/**
+	 * Return the entry for a project, creating it if it doesn't exist yet.
+	 * 
+	 * @param project
+	 * @return
+	 */
+	private ResourceProject<T> getOrCreateProject(IJavaProject project) {
+
+		return projects.computeIfAbsent(project) { key -> new ResourceProject<T>() }
+	}
+
+	/**
+	 * Retrieves the resource at the given path of a project.
+	 * 
+	 * @param project
+	 * @param path    The path to the resource.
+	 * @return The resource, or <tt>null</tt> if the project has no resource at
+	 *         that path.
+	 */
+	T getResource(IJavaProject project, IPath path) {
+
+		return projects[project]?.getResource(path)
 	}
 
 	/**
 	 * Retrieves all of the resources associated with the given project.
 	 * 
 	 * @param project
-	 * @return List of all resources attached to the project.
+	 * @return List of all resources attached to the project, or an empty list
+	 *         if the project isn't in this tree.
 	 */
 	Collection<T> getResourcesForProject(IJavaProject project) {
 
-		return projects[project].resources
+		return projects[project]?.resources ?: []
+	}
+
+	/**
+	 * Remove a project and all of its resources from the tree.
+	 * 
+	 * @param project
+	 */
+	void removeProject(IJavaProject project) {
+
+		projects.remove(project)
+	}
+
+	/**
+	 * Remove a resource from a project in the tree, if the project has it.
+	 * 
+	 * @param project
+	 * @param path    The path to the resource.
+	 */
+	void removeResourceFromProject(IJavaProject project, IPath path) {
+
+		projects[project]?.removeResource(path)
 	}
 }
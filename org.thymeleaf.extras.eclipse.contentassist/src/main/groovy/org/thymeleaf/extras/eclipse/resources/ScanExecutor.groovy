@@ -0,0 +1,288 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.resources
+
+import org.eclipse.core.runtime.IProgressMonitor
+import org.eclipse.core.runtime.OperationCanceledException
+import org.eclipse.jface.preference.IPreferenceStore
+import org.eclipse.jface.util.IPropertyChangeListener
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import org.thymeleaf.extras.eclipse.ContentAssistPlugin
+import static org.thymeleaf.extras.eclipse.ContentAssistPreferenceInitializer.*
+
+import jakarta.annotation.PostConstruct
+import jakarta.annotation.PreDestroy
+import jakarta.inject.Named
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.Callable
+import java.util.concurrent.Future
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * The one executor shared by all resource locators in the plugin for their
+ * scanning work, so that the number of threads scanning doesn't grow with the
+ * number of projects being loaded at the same time, where they would compete
+ * with Eclipse's own indexing.
+ * <p>
+ * The number of threads comes from the plugin preferences, which can also
+ * have them be virtual threads on Java runtimes that support them.  Work is
+ * held in a bounded queue, and when that fills up the thread submitting the
+ * work runs it instead, which slows down the submitter rather than letting the
+ * queue grow without limit.  Work submitted with a progress monitor is skipped
+ * once that monitor has been cancelled.
+ * 
+ * @author Emanuel Rabina
+ */
+@Named
+class ScanExecutor {
+
+	private static final Logger logger = LoggerFactory.getLogger(ScanExecutor)
+
+	static final int QUEUE_CAPACITY = 1024
+
+	private final IPreferenceStore preferences
+	private ThreadPoolExecutor executor
+	private IPropertyChangeListener parallelismChangeListener
+
+	private final AtomicLong submittedTasks = new AtomicLong()
+	private final AtomicLong completedTasks = new AtomicLong()
+	private final AtomicLong cancelledTasks = new AtomicLong()
+	private final AtomicLong taskTimeNanos = new AtomicLong()
+
+	/**
+	 * Constructor, configure the executor from the plugin preferences.
+	 */
+	ScanExecutor() {
+
+		this(ContentAssistPlugin.default?.preferenceStore)
+	}
+
+	/**
+	 * Constructor, configure the executor from the given preferences.
+	 * 
+	 * @param preferences
+	 *   Preferences to read the scanning settings from, or <tt>null</tt> to use
+	 *   the defaults.
+	 */
+	ScanExecutor(IPreferenceStore preferences) {
+
+		this.preferences = preferences
+	}
+
+	/**
+	 * Stops the executor, waiting for any running work to finish.
+	 */
+	@PreDestroy
+	void close() {
+
+		if (parallelismChangeListener) {
+			preferences.removePropertyChangeListener(parallelismChangeListener)
+		}
+		logger.info("Shutting down scan executor, ${statistics}")
+		executor.shutdownAwaitTermination()
+	}
+
+	/**
+	 * Create a thread factory for scanning threads, using virtual threads if
+	 * asked for and the Java runtime supports them.
+	 * 
+	 * @param useVirtualThreads
+	 * @return
+	 */
+	private static ThreadFactory createThreadFactory(boolean useVirtualThreads) {
+
+		if (useVirtualThreads) {
+			if (Runtime.version().feature() >= 21) {
+				return Thread.ofVirtual().name('thymeleaf-scan-', 0).factory()
+			}
+			logger.info('Virtual threads not supported by this Java runtime, using platform threads for scanning')
+		}
+		def threadNumber = new AtomicInteger()
+		return { Runnable runnable ->
+			def thread = new Thread(runnable, "thymeleaf-scan-${threadNumber.getAndIncrement()}")
+			thread.daemon = true
+			thread.priority = Thread.NORM_PRIORITY - 1
+			return thread
+		} as ThreadFactory
+	}
+
+	/**
+	 * Return the number of tasks that are currently being run.
+	 * 
+	 * @return
+	 */
+	int getActiveCount() {
+
+		return executor.activeCount
+	}
+
+	/**
+	 * Return the number of threads that scanning work is spread over.
+	 * 
+	 * @return
+	 */
+	int getParallelism() {
+
+		return executor.maximumPoolSize
+	}
+
+	/**
+	 * Return the number of tasks waiting to be run.
+	 * 
+	 * @return
+	 */
+	int getQueueDepth() {
+
+		return executor.queue.size()
+	}
+
+	/**
+	 * Return a summary of the work this executor has done, for logging.
+	 * 
+	 * @return
+	 */
+	String getStatistics() {
+
+		return "parallelism: ${parallelism}, active: ${activeCount}, queued: ${queueDepth}, " +
+			"submitted: ${tasksSubmitted}, completed: ${tasksCompleted}, cancelled: ${tasksCancelled}, " +
+			"task time: ${taskTime}ms"
+	}
+
+	/**
+	 * Return the number of tasks that were skipped because their scan was
+	 * cancelled.
+	 * 
+	 * @return
+	 */
+	long getTasksCancelled() {
+
+		return cancelledTasks.get()
+	}
+
+	/**
+	 * Return the number of tasks that have been run to completion.
+	 * 
+	 * @return
+	 */
+	long getTasksCompleted() {
+
+		return completedTasks.get()
+	}
+
+	/**
+	 * Return the number of tasks that have been submitted.
+	 * 
+	 * @return
+	 */
+	long getTasksSubmitted() {
+
+		return submittedTasks.get()
+	}
+
+	/**
+	 * Return the total time spent running tasks, across all threads.
+	 * 
+	 * @return Time in milliseconds.
+	 */
+	long getTaskTime() {
+
+		return TimeUnit.NANOSECONDS.toMillis(taskTimeNanos.get())
+	}
+
+	/**
+	 * Create the executor from the plugin preferences, following any later
+	 * changes to the parallelism preference.
+	 */
+	@PostConstruct
+	void init() {
+
+		def parallelism = preferences?.getInt(SCAN_PARALLELISM_PREF) ?: defaultScanParallelism()
+		def useVirtualThreads = preferences?.getBoolean(SCAN_VIRTUAL_THREADS_PREF) ?: false
+
+		executor = new ThreadPoolExecutor(parallelism, parallelism, 30, TimeUnit.SECONDS,
+			new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY), createThreadFactory(useVirtualThreads),
+			new ThreadPoolExecutor.CallerRunsPolicy())
+		executor.allowCoreThreadTimeOut(true)
+
+		if (preferences) {
+			parallelismChangeListener = { event ->
+				if (event.property == SCAN_PARALLELISM_PREF) {
+					setParallelism(preferences.getInt(SCAN_PARALLELISM_PREF) ?: defaultScanParallelism())
+				}
+			} as IPropertyChangeListener
+			preferences.addPropertyChangeListener(parallelismChangeListener)
+		}
+	}
+
+	/**
+	 * Change the number of threads that scanning work is spread over.
+	 * 
+	 * @param parallelism
+	 */
+	void setParallelism(int parallelism) {
+
+		// Order matters, as the core size can't be set above the maximum size
+		if (parallelism > executor.maximumPoolSize) {
+			executor.maximumPoolSize = parallelism
+			executor.corePoolSize = parallelism
+		}
+		else {
+			executor.corePoolSize = parallelism
+			executor.maximumPoolSize = parallelism
+		}
+		logger.info("Scan parallelism set to ${parallelism}")
+	}
+
+	/**
+	 * Submit some scanning work.  If the given progress monitor is cancelled
+	 * then no more work can be submitted with it, and any work already submitted
+	 * that hasn't started yet is skipped, returning <tt>null</tt> instead.
+	 * 
+	 * @param monitor
+	 *   Progress monitor of the scan the work is a part of, can be <tt>null</tt>.
+	 * @param task
+	 * @return Future for the result of the task.
+	 * @throws OperationCanceledException
+	 *   If the progress monitor has already been cancelled.
+	 */
+	public <T> Future<T> submit(IProgressMonitor monitor, Callable<T> task) {
+
+		if (monitor?.canceled) {
+			throw new OperationCanceledException()
+		}
+		submittedTasks.incrementAndGet()
+		return executor.submit({ ->
+			if (monitor?.canceled) {
+				cancelledTasks.incrementAndGet()
+				return null
+			}
+			def start = System.nanoTime()
+			try {
+				return task.call()
+			}
+			finally {
+				taskTimeNanos.addAndGet(System.nanoTime() - start)
+				completedTasks.incrementAndGet()
+			}
+		} as Callable<T>)
+	}
+}
@@ -0,0 +1,170 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.template
+
+import org.attoparser.AbstractMarkupHandler
+import org.attoparser.ParseException
+import org.eclipse.core.runtime.IPath
+import org.thymeleaf.extras.eclipse.template.model.Fragment
+import org.thymeleaf.extras.eclipse.template.model.FragmentReference
+import org.thymeleaf.extras.eclipse.template.model.FragmentUsage
+
+/**
+ * A streaming markup handler that picks out only the fragment-defining
+ * attributes of a template, {@code th:fragment} and {@code data-th-fragment},
+ * the fragment-including ones, {@code th:insert}, {@code th:replace},
+ * {@code th:include} and their {@code data-th-*} forms, and where their values
+ * are in the document.  Nothing else in the template is kept, so parsing with
+ * this handler takes the same memory however big the template is.
+ * 
+ * @author Emanuel Rabina
+ */
+class FragmentMarkupHandler extends AbstractMarkupHandler {
+
+	private static final char[] FRAGMENT_ATTRIBUTE      = 'th:fragment'.toCharArray()
+	private static final char[] DATA_FRAGMENT_ATTRIBUTE = 'data-th-fragment'.toCharArray()
+	private static final char[][] INCLUDE_ATTRIBUTES = [
+		'th:insert', 'th:replace', 'th:include', 'data-th-insert', 'data-th-replace', 'data-th-include'
+	].collect { attributeName -> attributeName.toCharArray() } as char[][]
+
+	final List<Fragment> fragments = new ArrayList<>()
+	final List<FragmentUsage> usages = new ArrayList<>()
+
+	private final LineOffsetReader reader
+	private final IPath filePath
+	private boolean fragmentInElement
+
+	/**
+	 * Constructor, set the reader the template is being parsed from so that
+	 * fragment positions can be turned into document offsets.
+	 * 
+	 * @param reader
+	 *   Reader the template is being parsed from, or <tt>null</tt> to record
+	 *   only the lines of fragments.
+	 * @param filePath
+	 *   Path of the template, for the fragment usages found in it.
+	 */
+	FragmentMarkupHandler(LineOffsetReader reader, IPath filePath) {
+
+		this.reader = reader
+		this.filePath = filePath
+	}
+
+	/**
+	 * Return whether an attribute name is the given one, ignoring case as HTML
+	 * does, without creating a string for it.
+	 * 
+	 * @param buffer
+	 * @param nameOffset
+	 * @param nameLen
+	 * @param attributeName
+	 * @return
+	 */
+	private static boolean attributeNameMatches(char[] buffer, int nameOffset, int nameLen, char[] attributeName) {
+
+		if (nameLen != attributeName.length) {
+			return false
+		}
+		for (int i = 0; i < nameLen; i++) {
+			if (Character.toLowerCase(buffer[nameOffset + i]) != attributeName[i]) {
+				return false
+			}
+		}
+		return true
+	}
+
+	/**
+	 * Record a fragment if this is a fragment-defining attribute, and it's the
+	 * first one on its element, or a fragment usage if this is a
+	 * fragment-including attribute whose value names a template.
+	 */
+	@Override
+	void handleAttribute(char[] buffer, int nameOffset, int nameLen, int nameLine, int nameCol,
+		int operatorOffset, int operatorLen, int operatorLine, int operatorCol, int valueContentOffset,
+		int valueContentLen, int valueOuterOffset, int valueOuterLen, int valueLine, int valueCol)
+		throws ParseException {
+
+		if (!fragmentInElement && (attributeNameMatches(buffer, nameOffset, nameLen, FRAGMENT_ATTRIBUTE) ||
+			attributeNameMatches(buffer, nameOffset, nameLen, DATA_FRAGMENT_ATTRIBUTE))) {
+			fragments << new Fragment(new String(buffer, valueContentOffset, valueContentLen), valueLine,
+				valueOffset(valueContentOffset, valueOuterOffset, valueLine, valueCol))
+			fragmentInElement = true
+		}
+		else if (isIncludeAttribute(buffer, nameOffset, nameLen)) {
+			def reference = FragmentReference.parse(new String(buffer, valueContentOffset, valueContentLen))
+			if (reference.literal && (reference.fragmentName || !reference.selfReference)) {
+				usages << new FragmentUsage(filePath, reference, valueLine,
+					valueOffset(valueContentOffset, valueOuterOffset, valueLine, valueCol))
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	void handleOpenElementStart(char[] buffer, int nameOffset, int nameLen, int line, int col)
+		throws ParseException {
+
+		fragmentInElement = false
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	void handleStandaloneElementStart(char[] buffer, int nameOffset, int nameLen, boolean minimized,
+		int line, int col) throws ParseException {
+
+		fragmentInElement = false
+	}
+
+	/**
+	 * Return whether an attribute name is that of a fragment-including
+	 * attribute.
+	 * 
+	 * @param buffer
+	 * @param nameOffset
+	 * @param nameLen
+	 * @return
+	 */
+	private static boolean isIncludeAttribute(char[] buffer, int nameOffset, int nameLen) {
+
+		for (def includeAttribute: INCLUDE_ATTRIBUTES) {
+			if (attributeNameMatches(buffer, nameOffset, nameLen, includeAttribute)) {
+				return true
+			}
+		}
+		return false
+	}
+
+	/**
+	 * Return the offset of an attribute's value from the start of the
+	 * template.
+	 * 
+	 * @param valueContentOffset
+	 * @param valueOuterOffset
+	 * @param valueLine
+	 * @param valueCol
+	 * @return Offset of the value, or <tt>-1</tt> if there is no reader to work
+	 *   it out with.
+	 */
+	private int valueOffset(int valueContentOffset, int valueOuterOffset, int valueLine, int valueCol) {
+
+		return reader ? reader.getOffset(valueLine, valueCol + (valueContentOffset - valueOuterOffset)) : -1
+	}
+}
@@ -0,0 +1,112 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.template
+
+/**
+ * A reader that keeps track of where each line starts as the characters pass
+ * through it, so that the line and column positions reported by a streaming
+ * parser can be turned into offsets from the start of the document.  Only the
+ * start of each line is kept, not the text itself.
+ * 
+ * @author Emanuel Rabina
+ */
+class LineOffsetReader extends FilterReader {
+
+	private int[] lineOffsets = new int[64]
+	private int lines = 1
+	private int offset = 0
+
+	/**
+	 * Constructor, wrap the given reader.
+	 * 
+	 * @param reader
+	 */
+	LineOffsetReader(Reader reader) {
+
+		super(reader)
+	}
+
+	/**
+	 * Return the offset from the start of the document of the given line and
+	 * column, for lines that have been read so far.
+	 * 
+	 * @param line   Line number, starting at 1.
+	 * @param column Column number, starting at 1.
+	 * @return Offset of the position, or <tt>-1</tt> if the line hasn't been
+	 *   read yet.
+	 */
+	int getOffset(int line, int column) {
+
+		return line >= 1 && line <= lines ? lineOffsets[line - 1] + column - 1 : -1
+	}
+
+	/**
+	 * Note the start of a new line.
+	 * 
+	 * @param lineOffset
+	 */
+	private void newLine(int lineOffset) {
+
+		if (lines == lineOffsets.length) {
+			lineOffsets = Arrays.copyOf(lineOffsets, lines * 2)
+		}
+		lineOffsets[lines++] = lineOffset
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	int read() {
+
+		def c = super.read()
+		if (c != -1) {
+			offset++
+			if (c == (int)'\n') {
+				newLine(offset)
+			}
+		}
+		return c
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	int read(char[] buffer, int bufferOffset, int length) {
+
+		def read = super.read(buffer, bufferOffset, length)
+		for (int i = 0; i < read; i++) {
+			if (buffer[bufferOffset + i] == (char)'\n') {
+				newLine(offset + i + 1)
+			}
+		}
+		if (read > 0) {
+			offset += read
+		}
+		return read
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	long skip(long n) {
+
+		throw new IOException('Skipping is not supported')
+	}
+}
@@ -18,21 +18,35 @@ package org.thymeleaf.extras.eclipse.template
 
 import org.eclipse.core.resources.IContainer
 import org.eclipse.core.resources.IFile
-import org.eclipse.core.resources.IFolder
-import org.eclipse.core.resources.IProject
+import org.eclipse.core.resources.IResource
+import org.eclipse.core.resources.IResourceProxy
+import org.eclipse.core.resources.IResourceProxyVisitor
+import org.eclipse.core.runtime.IPath
+import org.eclipse.core.runtime.IProgressMonitor
+import org.eclipse.core.runtime.OperationCanceledException
+import org.eclipse.jdt.core.IClasspathEntry
 import org.eclipse.jdt.core.IJavaProject
+import org.eclipse.jdt.core.JavaModelException
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 import org.thymeleaf.extras.eclipse.resources.ResourceLocator
+import static org.thymeleaf.extras.eclipse.ContentAssistPreferenceInitializer.templateRoots
 
 import groovy.transform.TupleConstructor
-import java.util.concurrent.Callable
-import java.util.concurrent.ExecutorService
-import java.util.concurrent.Executors
-import java.util.concurrent.Future 
+
 /**
  * Locates Thymeleaf templates in the current project.  Basically, all HTML
  * files.
+ * <p>
+ * If the project has any of the template roots from the plugin preferences
+ * (eg: {@code src/main/resources/templates}), then only those folders are
+ * searched, otherwise the whole project is.  Either way, folders that can't
+ * hold the project's own templates are skipped: derived and team-private
+ * folders, and the Java output folders.  When searching the whole project,
+ * hidden folders and well-known build and dependency folders like
+ * {@code target} and {@code node_modules} are skipped too, but not inside a
+ * template root, where a folder with one of those names is part of the
+ * template names.
  * 
  * @author Emanuel Rabina
  */
@@ -41,10 +55,142 @@ class ProjectTemplateLocator implements ResourceLocator<IFile> {
 
 	private static final Logger logger = LoggerFactory.getLogger(ProjectTemplateLocator)
 
+	private static final Set<String> SKIPPED_FOLDER_NAMES = ['bin', 'bower_components', 'build', 'node_modules', 'target'] as Set
+
 	final IJavaProject project
+	final IProgressMonitor monitor
+
+	private Set<IPath> outputLocations
+	private List<IContainer> projectTemplateRoots
+
+	/**
+	 * Return whether or not a template file is one that this locator would
+	 * find, ie: that it is in one of the template roots and not in any skipped
+	 * folder.
+	 * 
+	 * @param file
+	 * @return <tt>true</tt> if the file would be located as a template.
+	 */
+	boolean contains(IFile file) {
+
+		if (!isTemplateFile(file) || file.project != project.project) {
+			return false
+		}
+		def templateRoot = getTemplateRoots().find { templateRoot -> templateRoot.fullPath.isPrefixOf(file.fullPath) }
+		if (!templateRoot) {
+			return false
+		}
+		def outputLocations = getOutputLocations()
+		def skipByName = templateRoot.type == IResource.PROJECT
+		for (def folder = file.parent; folder != templateRoot; folder = folder.parent) {
+			if (isSkippedFolder(folder.name, folder.derived, folder.teamPrivateMember, folder.fullPath, outputLocations,
+				skipByName)) {
+				return false
+			}
+		}
+		return true
+	}
+
+	/**
+	 * Return the full paths of the project's Java output folders, which only
+	 * ever have copies of the project's templates.  Worked out the first time
+	 * they're needed.
+	 * 
+	 * @return
+	 */
+	private Set<IPath> getOutputLocations() {
+
+		if (outputLocations == null) {
+			outputLocations = new HashSet<IPath>()
+			try {
+				if (project.exists()) {
+					outputLocations << project.outputLocation
+					project.rawClasspath.each { classpathEntry ->
+						if (classpathEntry.entryKind == IClasspathEntry.CPE_SOURCE && classpathEntry.outputLocation) {
+							outputLocations << classpathEntry.outputLocation
+						}
+					}
+				}
+			}
+			catch (JavaModelException ex) {
+				logger.warn("Unable to read the output folders of ${project.elementName}", ex)
+			}
+		}
+		return outputLocations
+	}
+
+	/**
+	 * Return the name a template resolver would know a template file by: its
+	 * path relative to the template root it's in, without the {@code .html}
+	 * extension, eg: {@code layout/main}.
+	 * 
+	 * @param file
+	 * @return
+	 */
+	String getTemplateName(IFile file) {
+
+		def templateRoot = getTemplateRoots().find { templateRoot -> templateRoot.fullPath.isPrefixOf(file.fullPath) }
+		def relativePath = templateRoot ? file.fullPath.makeRelativeTo(templateRoot.fullPath) : file.projectRelativePath
+		return relativePath.removeFileExtension().toString()
+	}
+
+	/**
+	 * Return the folders to search for templates: the template roots from the
+	 * preferences that exist in the project, or the whole project if it has
+	 * none of them.  Worked out the first time they're needed.
+	 * 
+	 * @return
+	 */
+	private List<IContainer> getTemplateRoots() {
+
+		if (projectTemplateRoots == null) {
+			def existingRoots = templateRoots()
+				.collect { templateRoot -> project.project.getFolder(templateRoot) }
+				.findAll { folder -> folder.exists() }
+			projectTemplateRoots = existingRoots ?: [project.project]
+		}
+		return projectTemplateRoots
+	}
+
+	/**
+	 * Return whether or not a folder should be skipped when looking for
+	 * templates.
+	 * 
+	 * @param name
+	 * @param derived
+	 * @param teamPrivate
+	 * @param fullPath
+	 * @param outputLocations
+	 * @param skipByName
+	 *   Whether to also skip hidden folders and well-known build and dependency
+	 *   folders by their name, which is only done when searching the whole
+	 *   project.
+	 * @return
+	 */
+	private static boolean isSkippedFolder(String name, boolean derived, boolean teamPrivate, IPath fullPath,
+		Set<IPath> outputLocations, boolean skipByName) {
+
+		return derived || teamPrivate || outputLocations.contains(fullPath) ||
+			(skipByName && (name.startsWith('.') || SKIPPED_FOLDER_NAMES.contains(name)))
+	}
+
+	/**
+	 * Return whether or not a resource is a file that could be a template.
+	 * 
+	 * @param resource
+	 * @return <tt>true</tt> for HTML files.
+	 */
+	static boolean isTemplateFile(IResource resource) {
+
+		return resource instanceof IFile && resource.name.endsWith('.html')
+	}
 
 	/**
 	 * {@inheritDoc}
+	 * <p>
+	 * Each template root is walked with a resource proxy visitor, so resources
+	 * are only created for the HTML files found, and skipped folders aren't
+	 * gone into at all.
 	 */
 	@Override
 	List<IFile> locate() {
@@ -52,36 +198,32 @@ class ProjectTemplateLocator implements ResourceLocator<IFile> {
 		logger.info("Scanning for Thymeleaf templates in the project")
 
 		return time('Scanning for templates', logger) { ->
+			def templateRoots = getTemplateRoots()
+			def outputLocations = getOutputLocations()
 
-			// Multi-threaded search for template files - there can be a lot of files
-			// to get through.
-			def executorService = Executors.newFixedThreadPool(Runtime.runtime.availableProcessors())
-			return executorService.executeAndShutdown { ExecutorService executor ->
-
-				def scannerTasks = new ArrayList<Future<List<IFile>>>()
-				def addTasks
-				addTasks = { IContainer container ->
-					if (container instanceof IProject || container instanceof IFolder) {
-						scannerTasks << executor.submit({ ->
-							def files = new ArrayList<IFile>()
-							container.members().each { resource ->
-								if (resource instanceof IContainer) {
-									addTasks(container)
-								}
-								else if (resource instanceof IFile && resource.name.endsWith('.html')) {
-									files << resource
-								}
-							}
-							return files
-						} as Callable)
+			def templates = new LinkedHashSet<IFile>()
+			templateRoots.each { templateRoot ->
+				def skipByName = templateRoot.type == IResource.PROJECT
+				templateRoot.accept({ IResourceProxy proxy ->
+					if (monitor?.canceled) {
+						throw new OperationCanceledException()
 					}
-				}
-				addTasks(project.project)
-
-				return scannerTasks.inject([]) { acc, scannerTask ->
-					return acc + scannerTask.get()
-				}
+					if (proxy.type == IResource.FILE) {
+						if (proxy.name.endsWith('.html')) {
+							templates << (IFile)proxy.requestResource()
+						}
+						return false
+					}
+					if (proxy.type == IResource.PROJECT) {
+						return true
+					}
+					def fullPath = proxy.requestFullPath()
+					return fullPath == templateRoot.fullPath ||
+						!isSkippedFolder(proxy.name, proxy.derived, proxy.teamPrivateMember, fullPath, outputLocations,
+							skipByName)
+				} as IResourceProxyVisitor, IResource.NONE)
 			}
+			return new ArrayList<IFile>(templates)
 		}
 	}
 }
@@ -16,33 +16,93 @@
 
 package org.thymeleaf.extras.eclipse.template
 
+import org.attoparser.MarkupParser
 import org.attoparser.config.ParseConfiguration
-import org.attoparser.dom.DOMMarkupParser
+import org.eclipse.core.resources.IFile
+import org.eclipse.core.runtime.OperationCanceledException
+import org.eclipse.core.runtime.SubMonitor
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
 import org.thymeleaf.extras.eclipse.resources.ResourceLoader
+import org.thymeleaf.extras.eclipse.resources.ScanExecutor
 import org.thymeleaf.extras.eclipse.template.model.Template
 
+import jakarta.inject.Inject
 import jakarta.inject.Named
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
 
 /**
  * Creates template metadata for any templates picked out by a template locator.
+ * <p>
+ * Templates are streamed through a {@link FragmentMarkupHandler}, which keeps
+ * only the fragments defined and used in them, instead of being built into a DOM, and
+ * are parsed in parallel on the shared {@link ScanExecutor}.
  * 
  * @author Emanuel Rabina
  */
 @Named
 class TemplateLoader implements ResourceLoader<Template, ProjectTemplateLocator> {
 
+	private static final Logger logger = LoggerFactory.getLogger(TemplateLoader)
+
+	// Markup parsers are thread-safe, so the one can be shared by all loads
+	private static final MarkupParser markupParser = new MarkupParser(ParseConfiguration.htmlConfiguration())
+
+	@Inject
+	private final ScanExecutor scanExecutor
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	List<Template> load(ProjectTemplateLocator locator) {
 
-		return locator.locate().collect { file ->
-			return new BufferedReader(new InputStreamReader(file.contents)).withReader { reader ->
-				def parser = new DOMMarkupParser(ParseConfiguration.htmlConfiguration())
-				def document = parser.parse(file.name, reader)
-				return new Template(file.fullPath, document)
+		def files = locator.locate()
+		def monitor = locator.monitor
+
+		def templateTasks = new ArrayList<Future<Template>>(files.size())
+		files.each { file ->
+			def templateName = locator.getTemplateName(file)
+			templateTasks << scanExecutor.submit(monitor, { -> loadTemplate(file, templateName) } as Callable<Template>)
+		}
+
+		def templates = new ArrayList<Template>(templateTasks.size())
+		def progress = SubMonitor.convert(monitor, templateTasks.size())
+		templateTasks.eachWithIndex { templateTask, index ->
+			progress.split(1)
+			try {
+				def template = templateTask.get()
+				if (template) {
+					templates << template
+				}
+				else if (monitor?.canceled) {
+					throw new OperationCanceledException()
+				}
+			}
+			catch (ExecutionException ex) {
+				logger.warn("Unable to read fragments from template ${files[index].fullPath}", ex.cause)
 			}
 		}
+		return templates
+	}
+
+	/**
+	 * Read the fragments defined in, and the fragments used by, a single
+	 * template file.
+	 * 
+	 * @param file
+	 * @param templateName
+	 *   Name of the template as a template resolver would know it.
+	 * @return Template with just the fragments and fragment usages found in it.
+	 */
+	Template loadTemplate(IFile file, String templateName) {
+
+		return new LineOffsetReader(new BufferedReader(new InputStreamReader(file.contents, file.charset))).withReader { reader ->
+			def handler = new FragmentMarkupHandler(reader, file.fullPath)
+			markupParser.parse(reader, handler)
+			return new Template(file.fullPath, templateName, handler.fragments, handler.usages)
+		}
 	}
 }
@@ -0,0 +1,300 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.template.cache
+
+import org.thymeleaf.extras.eclipse.dialect.cache.NameMatcher
+import org.thymeleaf.extras.eclipse.template.model.Fragment
+import org.thymeleaf.extras.eclipse.template.model.FragmentUsage
+import org.thymeleaf.extras.eclipse.template.model.Template
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * An index of the templates in a project, by the names used for them in
+ * fragment expressions, eg: the {@code layout/main} of
+ * {@code layout/main :: header}.  Templates index their own fragments by name,
+ * so finding a fragment from an expression is a pair of hash lookups however
+ * many templates and fragments a project has.
+ * <p>
+ * Template names are also grouped by the folder they're in, so that completing
+ * a template name only has to look at the entries of the folder being typed,
+ * where an entry is either a template or a subfolder, eg: {@code layout/}.
+ * <p>
+ * The other way around, the places templates use fragments in
+ * {@code th:insert}, {@code th:replace}, and {@code th:include} attributes
+ * are kept by the template and fragment they refer to, so that finding the
+ * usages of a fragment, or the references to a template that no longer
+ * resolve, only looks at the usages of that template.
+ * <p>
+ * The index is updated by one thread at a time, while any number of threads
+ * can read it.
+ * 
+ * @author Emanuel Rabina
+ */
+class FragmentIndex {
+
+	private final ConcurrentHashMap<String,Template> templatesByName = new ConcurrentHashMap<>()
+	private final ConcurrentHashMap<String,Set<String>> entriesByFolder = new ConcurrentHashMap<>()
+
+	// Usages by the name of the template they refer to, then by fragment name,
+	// with an empty fragment name for usages of the whole template
+	private final ConcurrentHashMap<String,ConcurrentHashMap<String,Set<FragmentUsage>>> usagesByTemplate =
+		new ConcurrentHashMap<>()
+
+	/**
+	 * Add a template to the index, replacing any other template with the same
+	 * name.
+	 * 
+	 * @param template
+	 */
+	void addTemplate(Template template) {
+
+		def previousTemplate = templatesByName.put(template.name, template)
+		if (previousTemplate && !previousTemplate.is(template)) {
+			removeUsages(previousTemplate)
+		}
+		addUsages(template)
+
+		// Add the template to its folder, and each folder to its parent
+		def entry = template.name
+		def folder = folderOf(entry)
+		while (entriesByFolder.computeIfAbsent(folder) { key -> ConcurrentHashMap.newKeySet() }.add(entry) && folder) {
+			entry = folder
+			folder = folderOf(folder.substring(0, folder.length() - 1))
+		}
+	}
+
+	/**
+	 * Add the fragment usages of a template to the usages of the templates they
+	 * refer to.
+	 * 
+	 * @param template
+	 */
+	private void addUsages(Template template) {
+
+		template.usages.each { usage ->
+			usagesByTemplate
+				.computeIfAbsent(template.getTargetTemplateName(usage)) { key -> new ConcurrentHashMap<>() }
+				.computeIfAbsent(usage.reference.fragmentName ?: '') { key -> ConcurrentHashMap.newKeySet() }
+				.add(usage)
+		}
+	}
+
+	/**
+	 * Return the fragment referred to by a template name and fragment name.
+	 * 
+	 * @param templateName
+	 * @param fragmentName
+	 * @return The fragment, or <tt>null</tt> if there's no such template or the
+	 *   template has no fragment with that name.
+	 */
+	Fragment findFragment(String templateName, String fragmentName) {
+
+		return findTemplate(templateName)?.getFragment(fragmentName)
+	}
+
+	/**
+	 * Return the template with the given name.
+	 * 
+	 * @param templateName
+	 * @return The template, or <tt>null</tt> if there's no template with that
+	 *   name.
+	 */
+	Template findTemplate(String templateName) {
+
+		return templateName != null ? templatesByName[templateName] : null
+	}
+
+	/**
+	 * Return the names of templates and subfolders in the folder of the given
+	 * pattern that match the rest of it, eg: {@code layout/ma} would look in
+	 * the {@code layout/} folder for names matching {@code ma}.
+	 * 
+	 * @param pattern
+	 * @return Sorted list of matching template names and subfolders, where
+	 *   subfolders end in a {@code /}.
+	 */
+	List<String> findTemplateNames(String pattern) {
+
+		def entries = entriesByFolder[folderOf(pattern)]
+		if (!entries) {
+			return []
+		}
+		return entries.findAll { entry -> NameMatcher.matches(entry, pattern) }.sort()
+	}
+
+	/**
+	 * Return the references to templates or fragments that don't exist.
+	 * 
+	 * @return List of unresolved usages, sorted by the template they're in and
+	 *   then by their position in it.
+	 */
+	List<FragmentUsage> findUnresolvedReferences() {
+
+		def unresolvedUsages = new ArrayList<FragmentUsage>()
+		usagesByTemplate.keySet().each { templateName ->
+			gatherUnresolvedReferences(templateName, unresolvedUsages)
+		}
+		return sortUsages(unresolvedUsages)
+	}
+
+	/**
+	 * Return the references to a template, or to fragments in it, that don't
+	 * resolve, eg: to check only the usages of a template that has just been
+	 * changed or removed.
+	 * 
+	 * @param templateName
+	 * @return List of unresolved usages, sorted by the template they're in and
+	 *   then by their position in it.
+	 */
+	List<FragmentUsage> findUnresolvedReferences(String templateName) {
+
+		def unresolvedUsages = new ArrayList<FragmentUsage>()
+		gatherUnresolvedReferences(templateName, unresolvedUsages)
+		return sortUsages(unresolvedUsages)
+	}
+
+	/**
+	 * Return the places a template or fragment is used.
+	 * 
+	 * @param templateName
+	 * @param fragmentName
+	 *   Name of the fragment, or <tt>null</tt> for all usages of the template,
+	 *   whether of the whole template or of any of its fragments.
+	 * @return List of usages, sorted by the template they're in and then by
+	 *   their position in it.
+	 */
+	List<FragmentUsage> findUsages(String templateName, String fragmentName) {
+
+		def usagesByFragment = templateName != null ? usagesByTemplate[templateName] : null
+		if (!usagesByFragment) {
+			return []
+		}
+		if (fragmentName != null) {
+			return sortUsages(usagesByFragment[fragmentName] ?: [])
+		}
+		def usages = new ArrayList<FragmentUsage>()
+		usagesByFragment.values().each { fragmentUsages ->
+			usages.addAll(fragmentUsages)
+		}
+		return sortUsages(usages)
+	}
+
+	/**
+	 * Return the folder part of a template name, including the trailing
+	 * {@code /}.
+	 * 
+	 * @param templateName
+	 * @return The folder, or an empty string for templates not in a folder.
+	 */
+	private static String folderOf(String templateName) {
+
+		return templateName.substring(0, templateName.lastIndexOf('/') + 1)
+	}
+
+	/**
+	 * Gather the references to a template, or to fragments in it, that don't
+	 * resolve.
+	 * 
+	 * @param templateName
+	 * @param unresolvedUsages
+	 */
+	private void gatherUnresolvedReferences(String templateName, List<FragmentUsage> unresolvedUsages) {
+
+		def usagesByFragment = usagesByTemplate[templateName]
+		if (!usagesByFragment) {
+			return
+		}
+		def template = templatesByName[templateName]
+		usagesByFragment.each { fragmentName, usages ->
+			if (!template || (fragmentName && !template.getFragment(fragmentName))) {
+				unresolvedUsages.addAll(usages)
+			}
+		}
+	}
+
+	/**
+	 * Remove a template from the index, if it's the one the index has for its
+	 * name.
+	 * 
+	 * @param template
+	 */
+	void removeTemplate(Template template) {
+
+		if (!templatesByName.remove(template.name, template)) {
+			return
+		}
+		removeUsages(template)
+
+		// Remove the template from its folder, and any folders left empty from
+		// their parents
+		def entry = template.name
+		def folder = folderOf(entry)
+		while (true) {
+			def entries = entriesByFolder[folder]
+			entries?.remove(entry)
+			if (entries || !folder) {
+				break
+			}
+			entriesByFolder.remove(folder)
+			entry = folder
+			folder = folderOf(folder.substring(0, folder.length() - 1))
+		}
+	}
+
+	/**
+	 * Remove the fragment usages of a template from the usages of the
+	 * templates they refer to.
+	 * 
+	 * @param template
+	 */
+	private void removeUsages(Template template) {
+
+		template.usages.each { usage ->
+			def targetTemplateName = template.getTargetTemplateName(usage)
+			def usagesByFragment = usagesByTemplate[targetTemplateName]
+			if (!usagesByFragment) {
+				return
+			}
+			def fragmentName = usage.reference.fragmentName ?: ''
+			def usages = usagesByFragment[fragmentName]
+			usages?.remove(usage)
+			if (!usages) {
+				usagesByFragment.remove(fragmentName)
+				if (!usagesByFragment) {
+					usagesByTemplate.remove(targetTemplateName)
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sort fragment usages by the template they're in, then by their position
+	 * in it.
+	 * 
+	 * @param usages
+	 * @return Sorted list of the usages.
+	 */
+	private static List<FragmentUsage> sortUsages(Collection<FragmentUsage> usages) {
+
+		return usages.sort(false) { usage1, usage2 ->
+			return usage1.filePath.toString() <=> usage2.filePath.toString() ?:
+				usage1.line <=> usage2.line ?:
+				usage1.offset <=> usage2.offset
+		}
+	}
+}
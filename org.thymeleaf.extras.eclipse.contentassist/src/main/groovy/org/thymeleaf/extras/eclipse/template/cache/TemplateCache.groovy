@@ -16,53 +16,457 @@
 
 package org.thymeleaf.extras.eclipse.template.cache
 
+import org.eclipse.core.resources.IFile
+import org.eclipse.core.resources.IMarker
+import org.eclipse.core.resources.IProject
+import org.eclipse.core.resources.IResource
+import org.eclipse.core.resources.IResourceChangeEvent
+import org.eclipse.core.resources.IResourceChangeListener
+import org.eclipse.core.resources.IResourceDelta
+import org.eclipse.core.resources.IResourceDeltaVisitor
+import org.eclipse.core.resources.IWorkspace
+import org.eclipse.core.runtime.CoreException
+import org.eclipse.core.runtime.ICoreRunnable
+import org.eclipse.core.runtime.IPath
+import org.eclipse.core.runtime.IStatus
+import org.eclipse.core.runtime.jobs.IJobChangeEvent
+import org.eclipse.core.runtime.jobs.Job
+import org.eclipse.core.runtime.jobs.JobChangeAdapter
 import org.eclipse.jdt.core.IJavaProject
+import org.eclipse.jdt.core.JavaCore
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
 import org.thymeleaf.extras.eclipse.resources.ResourceTree
 import org.thymeleaf.extras.eclipse.template.ProjectTemplateLocator
 import org.thymeleaf.extras.eclipse.template.TemplateLoader
 import org.thymeleaf.extras.eclipse.template.model.Fragment
+import org.thymeleaf.extras.eclipse.template.model.FragmentUsage
 import org.thymeleaf.extras.eclipse.template.model.Template
+import static org.eclipse.core.resources.IResourceChangeEvent.*
 
+import jakarta.annotation.PostConstruct
+import jakarta.annotation.PreDestroy
 import jakarta.inject.Inject
 import jakarta.inject.Named
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
 
 /**
  * A basic in-memory store of all known template fragments per project.
+ * <p>
+ * A project's templates are all read by a {@link TemplateLoadJob} the first
+ * time its fragments are asked for, with nothing returned for that project
+ * until they're done.  After that, only the templates that are added, changed,
+ * or removed are read again, as workspace resource changes come in, so a
+ * project never needs to be scanned again while it's open.
+ * <p>
+ * Fragments are looked up through a {@link FragmentIndex} for each project,
+ * by the names they're referred to by in fragment expressions, which also
+ * keeps where each template and fragment is used so that the usages of a
+ * fragment can be found without going through any templates.  References to
+ * templates and fragments that don't exist are shown as problem markers on
+ * the templates they're in, updated as templates are added, changed, and
+ * removed.
  * 
  * @author Emanuel Rabina
  */
 @Named
 class TemplateCache {
 
-	@Inject
+	private static final Logger logger = LoggerFactory.getLogger(TemplateCache)
+
+	static final String FRAGMENT_PROBLEM_MARKER = 'org.thymeleaf.extras.eclipse.contentassist.fragmentProblem'
+
 	private final TemplateLoader templateLoader
-	@Inject
 	private final ResourceTree<Template> fragmentTree
+	private final IWorkspace workspace
+
+	private final ConcurrentHashMap<IJavaProject,TemplateLoadJob> templateLoadJobs = new ConcurrentHashMap<>()
+	private final ConcurrentHashMap<IJavaProject,FragmentIndex> fragmentIndexes = new ConcurrentHashMap<>()
+
+	// Template updates, and adding the templates read by a load job, are made one
+	// after the other, so that a later change to a template can't be overwritten
+	// by an earlier one.  Changes to projects still being loaded are held on to
+	// until the load is added, as it may have read those templates before they
+	// changed.
+	private final ExecutorService templateChangeExecutor = Executors.newSingleThreadExecutor()
+	private final HashMap<IJavaProject,Set<IFile>> pendingTemplateChanges = new HashMap<>()
+
+	/**
+	 * Re-read the templates that have been added or changed in projects whose
+	 * templates have already been asked for, and drop those that have been
+	 * removed.  Projects being closed or deleted are dropped entirely.
+	 */
+	private final IResourceChangeListener templateChangeListener = { IResourceChangeEvent event ->
+		switch (event.type) {
+		case POST_CHANGE:
+			if (event.delta) {
+				def changedTemplates = new ArrayList<IFile>()
+				def removedTemplates = new ArrayList<IFile>()
+				event.delta.accept({ IResourceDelta delta ->
+					def resource = delta.resource
+					if (resource instanceof IProject) {
+						return templateLoadJobs.containsKey(JavaCore.create(resource))
+					}
+					if (ProjectTemplateLocator.isTemplateFile(resource)) {
+						if (delta.kind == IResourceDelta.REMOVED) {
+							removedTemplates << (IFile)resource
+						}
+						else if (delta.kind == IResourceDelta.ADDED ||
+							delta.flags & (IResourceDelta.CONTENT | IResourceDelta.REPLACED | IResourceDelta.ENCODING)) {
+							changedTemplates << (IFile)resource
+						}
+						return false
+					}
+					return true
+				} as IResourceDeltaVisitor)
+				if (changedTemplates || removedTemplates) {
+					templateChangeExecutor.execute { ->
+						updateTemplates(changedTemplates, removedTemplates)
+					}
+				}
+			}
+			break
+		case PRE_CLOSE:
+		case PRE_DELETE:
+			def project = JavaCore.create((IProject)event.resource)
+			templateLoadJobs.remove(project)?.cancel()
+			templateChangeExecutor.execute { ->
+				pendingTemplateChanges.remove(project)
+				fragmentIndexes.remove(project)
+				fragmentTree.removeProject(project)
+			}
+			break
+		}
+	} as IResourceChangeListener
+
+	/**
+	 * Constructor, set the components used to read and keep templates.
+	 * 
+	 * @param templateLoader
+	 * @param fragmentTree
+	 * @param workspace
+	 */
+	@Inject
+	TemplateCache(TemplateLoader templateLoader, ResourceTree<Template> fragmentTree, IWorkspace workspace) {
+
+		this.templateLoader = templateLoader
+		this.fragmentTree   = fragmentTree
+		this.workspace      = workspace
+	}
+
+	/**
+	 * Add the templates read by a load job to the project they were read from,
+	 * then apply any changes to them that came in while they were being read.
+	 * Only called on the template change executor.
+	 * 
+	 * @param templateLoadJob
+	 */
+	private void addLoadedTemplates(TemplateLoadJob templateLoadJob) {
+
+		def project = templateLoadJob.project
+		if (!templateLoadJobs.get(project).is(templateLoadJob)) {
+			return
+		}
+
+		def templates = templateLoadJob.templates
+		def templatePaths = new HashMap<IPath,Template>(templates.size() * 2)
+		def fragmentIndex = new FragmentIndex()
+		templates.each { template ->
+			templatePaths[template.filePath] = template
+			fragmentIndex.addTemplate(template)
+		}
+		fragmentTree.addResourcesToProject(project, templatePaths)
+		fragmentIndexes[project] = fragmentIndex
+		updateFragmentMarkers(fragmentIndex, [project.project.fullPath], [], fragmentIndex.findUnresolvedReferences())
+
+		def pendingTemplates = pendingTemplateChanges.remove(project)
+		if (pendingTemplates) {
+			updateTemplates(pendingTemplates.findAll { file -> file.exists() },
+				pendingTemplates.findAll { file -> !file.exists() })
+		}
+	}
+
+	/**
+	 * Stop listening for template changes, and cancel any template loads still
+	 * running.
+	 */
+	@PreDestroy
+	void close() {
+
+		workspace.removeResourceChangeListener(templateChangeListener)
+		Job.jobManager.cancel(TemplateLoadJob)
+		templateChangeExecutor.shutdownAwaitTermination()
+	}
 
 	/**
-	 * Return all of the fragments in the given project.
+	 * Return the HTML shown in content assist and hovers for a template or a
+	 * fragment in it.
+	 * 
+	 * @param template
+	 * @param fragment
+	 *   The fragment, or <tt>null</tt> for the template itself.
+	 * @return Documentation HTML.
+	 */
+	String getDocumentation(Template template, Fragment fragment) {
+
+		def docText = new StringBuilder()
+		if (fragment) {
+			docText.append('<b>').append(fragment.signature).append('</b>')
+				.append('<dl><dt>Template:</dt><dd>').append(template.name).append('</dd>')
+				.append('<dt>Defined in:</dt><dd>').append(template.filePath).append(', line ').append(fragment.line)
+				.append('</dd></dl>')
+		}
+		else {
+			docText.append('<b>').append(template.name).append('</b>')
+				.append('<dl><dt>Defined in:</dt><dd>').append(template.filePath).append('</dd>')
+			if (template.fragments) {
+				docText.append('<dt>Fragments:</dt><dd>')
+				template.fragments.eachWithIndex { templateFragment, index ->
+					if (index > 0) {
+						docText.append(', ')
+					}
+					docText.append(templateFragment.signature)
+				}
+				docText.append('</dd>')
+			}
+			docText.append('</dl>')
+		}
+		return docText.toString()
+	}
+
+	/**
+	 * Return the index of the templates and fragments in the given project.  If
+	 * this is the first time the project's fragments have been asked for, then
+	 * its templates are read in the background and nothing is returned for now.
 	 * 
 	 * @param project The current project.
-	 * @return List of fragments in the project.
+	 * @return Fragment index of the project, or <tt>null</tt> if its templates
+	 *         are still being read.
+	 */
+	FragmentIndex getFragmentIndex(IJavaProject project) {
+
+		if (!project) {
+			return null
+		}
+		def fragmentIndex = fragmentIndexes[project]
+		if (fragmentIndex == null) {
+			loadTemplatesFromProject(project)
+		}
+		return fragmentIndex
+	}
+
+	/**
+	 * Start listening for template changes.
+	 */
+	@PostConstruct
+	void init() {
+
+		workspace.addResourceChangeListener(templateChangeListener, POST_CHANGE | PRE_CLOSE | PRE_DELETE)
+	}
+
+	/**
+	 * Start reading all of a project's templates in the background, if that
+	 * hasn't been started already.
+	 * 
+	 * @param project
+	 */
+	private void loadTemplatesFromProject(IJavaProject project) {
+
+		if (templateLoadJobs.containsKey(project)) {
+			return
+		}
+		def templateLoadJob = new TemplateLoadJob(project, templateLoader)
+		if (!templateLoadJobs.putIfAbsent(project, templateLoadJob)) {
+
+			// Allow a cancelled load to be tried again later.  A failed one isn't,
+			// as it would most likely fail again, and be retried with every
+			// keystroke.
+			templateLoadJob.addJobChangeListener(new JobChangeAdapter() {
+				@Override
+				void done(IJobChangeEvent event) {
+					if (event.result.OK) {
+						templateChangeExecutor.execute { ->
+							addLoadedTemplates(templateLoadJob)
+						}
+					}
+					else if (event.result.severity == IStatus.CANCEL) {
+						templateLoadJobs.remove(project, templateLoadJob)
+					}
+				}
+			})
+			templateLoadJob.schedule()
+		}
+	}
+
+	/**
+	 * Add or replace a template of a project.
+	 * 
+	 * @param project
+	 * @param template
+	 */
+	private void putTemplate(IJavaProject project, Template template) {
+
+		def fragmentIndex = fragmentIndexes[project]
+		def previousTemplate = fragmentTree.getResource(project, template.filePath)
+		if (previousTemplate) {
+			fragmentIndex.removeTemplate(previousTemplate)
+		}
+		fragmentTree.addResourceToProject(project, template.filePath, template)
+		fragmentIndex.addTemplate(template)
+
+		// Check the references in this template, and the references to it, which
+		// may have only now been resolved
+		def checkedUsages = fragmentIndex.findUsages(template.name, null)
+		def unresolvedUsages = new LinkedHashSet<FragmentUsage>(fragmentIndex.findUnresolvedReferences(template.name))
+		if (previousTemplate && previousTemplate.name != template.name) {
+			checkedUsages += fragmentIndex.findUsages(previousTemplate.name, null)
+			unresolvedUsages.addAll(fragmentIndex.findUnresolvedReferences(previousTemplate.name))
+		}
+		template.usages.collect { usage -> template.getTargetTemplateName(usage) }.unique().each { targetTemplateName ->
+			fragmentIndex.findUnresolvedReferences(targetTemplateName).each { usage ->
+				if (usage.filePath == template.filePath) {
+					unresolvedUsages << usage
+				}
+			}
+		}
+		updateFragmentMarkers(fragmentIndex, [template.filePath], checkedUsages, unresolvedUsages)
+	}
+
+	/**
+	 * Remove a template from a project.
+	 * 
+	 * @param project
+	 * @param path
 	 */
-	List<Fragment> getFragments(IJavaProject project) {
-
-		// Build and cache a fragment library for the given project
-		if (!fragmentTree.containsProject(project)) {
-			def projectTemplateLocator = new ProjectTemplateLocator(project)
-			def templates = templateLoader.loadResources(projectTemplateLocator)
-			if (templates.size() > 0) {
-				templates.each { template ->
-					fragmentTree.addResourceToProject(project, template.filePath, template)
+	private void removeTemplate(IJavaProject project, IPath path) {
+
+		def template = fragmentTree.getResource(project, path)
+		if (template) {
+			fragmentTree.removeResourceFromProject(project, path)
+			def fragmentIndex = fragmentIndexes[project]
+			if (fragmentIndex) {
+				fragmentIndex.removeTemplate(template)
+
+				// References to the template no longer resolve, unless another
+				// template has the same name
+				updateFragmentMarkers(fragmentIndex, [path], fragmentIndex.findUsages(template.name, null),
+					fragmentIndex.findUnresolvedReferences(template.name))
+			}
+		}
+	}
+
+	/**
+	 * Update the problem markers for references to templates and fragments that
+	 * don't exist.  Markers are cleared from the given resources and from the
+	 * places of the given usages, then added for the unresolved usages.
+	 * 
+	 * @param fragmentIndex
+	 *   Index the usages were checked against.
+	 * @param clearedPaths
+	 *   Paths of the templates, or containers of them, to clear all markers
+	 *   from.
+	 * @param checkedUsages
+	 *   Usages to clear the marker from.
+	 * @param unresolvedUsages
+	 *   Usages to add a marker for.
+	 */
+	private void updateFragmentMarkers(FragmentIndex fragmentIndex, Collection<IPath> clearedPaths,
+		Collection<FragmentUsage> checkedUsages, Collection<FragmentUsage> unresolvedUsages) {
+
+		if (!clearedPaths && !checkedUsages && !unresolvedUsages) {
+			return
+		}
+		try {
+			workspace.run({ monitor ->
+				clearedPaths.each { path ->
+					workspace.root.findMember(path)?.deleteMarkers(FRAGMENT_PROBLEM_MARKER, false, IResource.DEPTH_INFINITE)
 				}
+				checkedUsages.each { usage ->
+					def file = workspace.root.getFile(usage.filePath)
+					if (file.exists()) {
+						file.findMarkers(FRAGMENT_PROBLEM_MARKER, false, IResource.DEPTH_ZERO).each { marker ->
+							if (marker.getAttribute(IMarker.LINE_NUMBER, -1) == usage.line &&
+								marker.getAttribute(IMarker.CHAR_START, -1) == usage.offset) {
+								marker.delete()
+							}
+						}
+					}
+				}
+				unresolvedUsages.each { usage ->
+					def file = workspace.root.getFile(usage.filePath)
+					if (file.exists()) {
+						def reference = usage.reference
+						def message = !reference.selfReference && !fragmentIndex.findTemplate(reference.templateName) ?
+							"Template ${reference.templateName} not found" :
+							reference.selfReference ? "Fragment ${reference.fragmentName} not found in this template" :
+							"Fragment ${reference.fragmentName} not found in template ${reference.templateName}"
+						def attributes = [
+							(IMarker.MESSAGE): message.toString(),
+							(IMarker.SEVERITY): IMarker.SEVERITY_WARNING,
+							(IMarker.LINE_NUMBER): usage.line
+						]
+						if (usage.offset != -1) {
+							attributes[IMarker.CHAR_START] = usage.offset
+						}
+						file.createMarker(FRAGMENT_PROBLEM_MARKER).setAttributes(attributes)
+					}
+				}
+			} as ICoreRunnable, null, IWorkspace.AVOID_UPDATE, null)
+		}
+		catch (CoreException ex) {
+			logger.warn('Unable to update fragment problem markers', ex)
+		}
+	}
+
+	/**
+	 * Re-read changed templates and drop removed ones, for projects whose
+	 * templates are still being kept.
+	 * 
+	 * @param changedTemplates
+	 * @param removedTemplates
+	 */
+	private void updateTemplates(Collection<IFile> changedTemplates, Collection<IFile> removedTemplates) {
+
+		// Hold on to changes for projects whose templates are still being read, or
+		// have been read but not added yet
+		def isLoading = { IFile file ->
+			def project = JavaCore.create(file.project)
+			def templateLoadJob = templateLoadJobs.get(project)
+			if (templateLoadJob && !fragmentIndexes.containsKey(project) &&
+				(templateLoadJob.result == null || templateLoadJob.result.OK)) {
+				pendingTemplateChanges.computeIfAbsent(project) { key -> new HashSet<IFile>() } << file
+				return true
 			}
-			else {
-				fragmentTree.addResourcesToProject(project, null, [])
+			return false
+		}
+
+		removedTemplates.each { file ->
+			if (!isLoading(file)) {
+				removeTemplate(JavaCore.create(file.project), file.fullPath)
 			}
 		}
 
-		return fragmentTree.getResourcesForProject(project).inject([]) { fragments, template ->
-			return fragments.addAll(template.fragments)
+		// Changed files are checked against the same rules used to find templates,
+		// so that eg: copies of templates made by a build aren't picked up
+		def projectLocators = new HashMap<IJavaProject,ProjectTemplateLocator>()
+		changedTemplates.each { file ->
+			def project = JavaCore.create(file.project)
+			if (isLoading(file) || !fragmentIndexes.containsKey(project) || !file.exists()) {
+				return
+			}
+			def projectLocator = projectLocators.computeIfAbsent(project) { key -> new ProjectTemplateLocator(key, null) }
+			if (!projectLocator.contains(file)) {
+				removeTemplate(project, file.fullPath)
+				return
+			}
+			try {
+				putTemplate(project, templateLoader.loadTemplate(file, projectLocator.getTemplateName(file)))
+			}
+			catch (Exception ex) {
+				logger.warn("Unable to read fragments from template ${file.fullPath}", ex)
+			}
 		}
 	}
 }
@@ -0,0 +1,111 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.template.cache
+
+import org.eclipse.core.runtime.IProgressMonitor
+import org.eclipse.core.runtime.IStatus
+import org.eclipse.core.runtime.OperationCanceledException
+import org.eclipse.core.runtime.Status
+import org.eclipse.core.runtime.SubMonitor
+import org.eclipse.core.runtime.jobs.Job
+import org.eclipse.jdt.core.IJavaProject
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import org.thymeleaf.extras.eclipse.template.ProjectTemplateLocator
+import org.thymeleaf.extras.eclipse.template.TemplateLoader
+import org.thymeleaf.extras.eclipse.template.model.Template
+
+/**
+ * Background job for reading all of the templates in a project the first time
+ * they're needed, so that the scan of a project can show its progress, be
+ * cancelled, and not hold up updates to the templates of other projects.  The
+ * templates read are kept on the job for the {@link TemplateCache} to pick up
+ * once it's done.
+ * 
+ * @author Emanuel Rabina
+ */
+class TemplateLoadJob extends Job {
+
+	private static final Logger logger = LoggerFactory.getLogger(TemplateLoadJob)
+
+	final IJavaProject project
+	private final TemplateLoader templateLoader
+	private List<Template> templates
+
+	/**
+	 * Constructor, set the project to read templates from and the loader to
+	 * read them with.
+	 * 
+	 * @param project
+	 * @param templateLoader
+	 */
+	TemplateLoadJob(IJavaProject project, TemplateLoader templateLoader) {
+
+		super("Loading Thymeleaf templates for ${project.elementName}")
+		this.project        = project
+		this.templateLoader = templateLoader
+		priority = LONG
+	}
+
+	/**
+	 * All template loading jobs belong to the family identified by this class,
+	 * so that they can be found, waited on, or cancelled together.
+	 * 
+	 * @param family
+	 * @return <tt>true</tt> if <tt>family</tt> is this class.
+	 */
+	@Override
+	boolean belongsTo(Object family) {
+
+		return family == TemplateLoadJob
+	}
+
+	/**
+	 * Return the templates read by this job.
+	 * 
+	 * @return The project's templates, or <tt>null</tt> if the job hasn't
+	 *   finished reading them.
+	 */
+	List<Template> getTemplates() {
+
+		return templates
+	}
+
+	/**
+	 * Locate and read all of the project's templates.
+	 * 
+	 * @param monitor
+	 * @return {@link Status#OK_STATUS} once all templates have been read, or
+	 *   {@link Status#CANCEL_STATUS} if the job was cancelled part way.
+	 */
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+
+		def subMonitor = SubMonitor.convert(monitor, name, 1)
+		try {
+			templates = templateLoader.load(new ProjectTemplateLocator(project, subMonitor.split(1)))
+			return Status.OK_STATUS
+		}
+		catch (OperationCanceledException ignored) {
+			logger.info("Loading of templates for ${project.elementName} was cancelled")
+			return Status.CANCEL_STATUS
+		}
+		finally {
+			monitor?.done()
+		}
+	}
+}
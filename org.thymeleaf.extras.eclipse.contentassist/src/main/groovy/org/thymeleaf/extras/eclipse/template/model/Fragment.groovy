@@ -28,29 +28,47 @@ import java.util.regex.Pattern
  */
 class Fragment {
 
-	private static final Pattern FRAGMENT_SPEC_PATTERN = ~/(.*?)(\(.*\))/
+	private static final Pattern FRAGMENT_SPEC_PATTERN = ~/\s*([^\s(]+)\s*(?:\((.*)\))?\s*/
 
 	private static final Logger logger = LoggerFactory.getLogger(Fragment)
 
 	final String name
 	final String[] arguments
+	final int line
+	final int offset
 
 	/**
 	 * Constructor, build a fragment from the given fragment spec string.
 	 * 
 	 * @param fragmentspec
+	 * @param line   Line of the template the fragment spec is on, starting at 1.
+	 * @param offset Offset of the fragment spec from the start of the template,
+	 *               or <tt>-1</tt> if not known.
 	 */
-	Fragment(String fragmentSpec) {
+	Fragment(String fragmentSpec, int line, int offset) {
+
+		this.line = line
+		this.offset = offset
 
 		def matcher = FRAGMENT_SPEC_PATTERN.matcher(fragmentSpec)
 		if (matcher.matches()) {
 			name = matcher.group(1)
-			if (matcher.groupCount() == 2) {
-				arguments = matcher.group(2).split(',').collect { arg -> arg.trim() }
-			}
+			def argumentList = matcher.group(2)?.trim()
+			arguments = argumentList ? argumentList.split(',').collect { arg -> arg.trim() } : new String[0]
 		}
 		else {
 			logger.info("Fragment spec \"${fragmentSpec}\" doesn\'t conform to fragment signature pattern")
 		}
 	}
+
+	/**
+	 * Return the fragment name along with any arguments, as it would appear in
+	 * a fragment expression, eg: {@code header(title)}.
+	 * 
+	 * @return
+	 */
+	String getSignature() {
+
+		return arguments ? "${name}(${arguments.join(', ')})" : name
+	}
 }
@@ -0,0 +1,123 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.template.model
+
+import groovy.transform.TupleConstructor
+
+import java.util.regex.Pattern
+
+/**
+ * A reference to a template, and optionally a fragment in it, as found in the
+ * value of a fragment-including attribute like {@code th:replace}, eg:
+ * {@code ~{layout/main :: header}}.  Only simple references of a template name
+ * and fragment name are understood, not the fuller fragment selector syntax.
+ * 
+ * @author Emanuel Rabina
+ */
+@TupleConstructor(defaults = false)
+class FragmentReference {
+
+	private static final Set<String> FRAGMENT_INCLUDE_ATTRIBUTES = [
+		'th:insert', 'th:replace', 'th:include',
+		'data-th-insert', 'data-th-replace', 'data-th-include'
+	] as Set
+
+	private static final Pattern LITERAL_TEMPLATE_NAME_PATTERN = ~/[\w\-.\/]*/
+	private static final Pattern LITERAL_FRAGMENT_NAME_PATTERN = ~/[\w\-]+/
+
+	final String templateName
+
+	/**
+	 * Name of the fragment, without any arguments, or <tt>null</tt> if the
+	 * reference is to the whole template.
+	 */
+	final String fragmentName
+
+	/**
+	 * Return whether the given attribute takes a fragment reference for its
+	 * value.
+	 * 
+	 * @param attributeName
+	 * @return <tt>true</tt> for {@code th:insert}, {@code th:replace},
+	 *   {@code th:include}, and their {@code data-th-*} forms.
+	 */
+	static boolean isFragmentIncludeAttribute(String attributeName) {
+
+		return attributeName && FRAGMENT_INCLUDE_ATTRIBUTES.contains(attributeName.toLowerCase())
+	}
+
+	/**
+	 * Return whether this reference is to a template named in a fragment
+	 * expression, or the template the reference is in, and not to one worked
+	 * out from other expressions when the template is processed, eg:
+	 * {@code ${layout} :: header}.
+	 * 
+	 * @return
+	 */
+	boolean isLiteral() {
+
+		return templateName ==~ LITERAL_TEMPLATE_NAME_PATTERN &&
+			(fragmentName == null || fragmentName ==~ LITERAL_FRAGMENT_NAME_PATTERN)
+	}
+
+	/**
+	 * Return whether this reference is to the template it's in, eg:
+	 * {@code ::header} or {@code this :: header}.
+	 * 
+	 * @return
+	 */
+	boolean isSelfReference() {
+
+		return !templateName || templateName == 'this'
+	}
+
+	/**
+	 * Pick out the template name and fragment name from an attribute value, or
+	 * the start of one.  Any quotes, {@code ~{...}} wrapper, and fragment
+	 * arguments are left out.
+	 * 
+	 * @param attributeValue
+	 * @return
+	 */
+	static FragmentReference parse(String attributeValue) {
+
+		def expression = attributeValue.trim()
+		if (expression.startsWith('"') || expression.startsWith("'")) {
+			def quote = expression.substring(0, 1)
+			expression = expression.substring(1)
+			if (expression.endsWith(quote)) {
+				expression = expression.substring(0, expression.length() - 1)
+			}
+			expression = expression.trim()
+		}
+		if (expression.startsWith('~{')) {
+			expression = expression.substring(2)
+			if (expression.endsWith('}')) {
+				expression = expression.substring(0, expression.length() - 1)
+			}
+		}
+
+		def separator = expression.indexOf('::')
+		if (separator == -1) {
+			return new FragmentReference(expression.trim(), null)
+		}
+		def fragmentName = expression.substring(separator + 2).trim()
+		def argumentsStart = fragmentName.indexOf('(')
+		return new FragmentReference(expression.substring(0, separator).trim(),
+			argumentsStart != -1 ? fragmentName.substring(0, argumentsStart).trim() : fragmentName)
+	}
+}
@@ -0,0 +1,49 @@
+/* 
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.template.model
+
+import org.eclipse.core.runtime.IPath
+
+import groovy.transform.TupleConstructor
+
+/**
+ * Where a template refers to another template or fragment, through the value
+ * of a fragment-including attribute like {@code th:replace}.
+ * 
+ * @author Emanuel Rabina
+ */
+@TupleConstructor(defaults = false)
+class FragmentUsage {
+
+	/**
+	 * Path of the template the reference is in.
+	 */
+	final IPath filePath
+
+	final FragmentReference reference
+
+	/**
+	 * Line of the template the reference is on, starting at 1.
+	 */
+	final int line
+
+	/**
+	 * Offset of the reference from the start of the template, or <tt>-1</tt> if
+	 * not known.
+	 */
+	final int offset
+}
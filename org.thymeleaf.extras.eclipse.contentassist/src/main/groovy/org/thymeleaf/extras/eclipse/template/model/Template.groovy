@@ -16,55 +16,69 @@
 
 package org.thymeleaf.extras.eclipse.template.model
 
-import org.attoparser.dom.Document
-import org.attoparser.dom.Element
+import org.eclipse.core.runtime.IPath
 
 /**
- * Model of a Thymeleaf template.
+ * Model of a Thymeleaf template, holding just the fragments it defines and the
+ * places it uses other fragments.
  * 
  * @author Emanuel Rabina
  */
 class Template {
 
-	private static final String FRAGMENT_ATTRIBUTE      = "th:fragment"
-	private static final String DATA_FRAGMENT_ATTRIBUTE = "data-th-fragment"
-
-	final String filePath
+	final IPath filePath
+	final String name
 	final List<Fragment> fragments
+	final List<FragmentUsage> usages
+
+	private final Map<String,Fragment> fragmentsByName
 
 	/**
-	 * Create a new template from an HTML document.
+	 * Create a new template from the fragments and fragment usages found in it.
 	 * 
 	 * @param filePath
-	 * @param document
+	 * @param name
+	 *   Name of the template as a template resolver would know it, eg:
+	 *   {@code layout/main}.
+	 * @param fragments
+	 * @param usages
 	 */
-	Template(String filePath, Document document) {
+	Template(IPath filePath, String name, List<Fragment> fragments, List<FragmentUsage> usages) {
 
 		this.filePath = filePath
-		fragments = findFragments(document.getFirstChildOfType(Element))
+		this.name = name
+		this.fragments = Collections.unmodifiableList(fragments)
+		this.usages = Collections.unmodifiableList(usages)
+
+		fragmentsByName = new HashMap<>(fragments.size() * 2)
+		fragments.each { fragment ->
+			if (fragment.name && !fragmentsByName.containsKey(fragment.name)) {
+				fragmentsByName[fragment.name] = fragment
+			}
+		}
 	}
 
 	/**
-	 * Recursive search for any fragment signatures inside an element.
+	 * Return the fragment with the given name.
 	 * 
-	 * @param element
-	 * @return List of fragments in the current element.
+	 * @param fragmentName
+	 * @return The fragment, or <tt>null</tt> if this template doesn't define a
+	 *   fragment with that name.
 	 */
-	private List<Fragment> findFragments(Element element) {
-
-		def fragments = []
+	Fragment getFragment(String fragmentName) {
 
-		if (element.hasAttribute(FRAGMENT_ATTRIBUTE)) {
-			fragments.add(new Fragment(element.getAttributeValue(FRAGMENT_ATTRIBUTE)))
-		}
-		else if (element.hasAttribute(DATA_FRAGMENT_ATTRIBUTE)) {
-			fragments.add(new Fragment(element.getAttributeValue(DATA_FRAGMENT_ATTRIBUTE)))
-		}
+		return fragmentsByName[fragmentName]
+	}
 
-		element.getChildrenOfType(Element).each { childElement ->
-			fragments.addAll(findFragments(childElement))
-		}
+	/**
+	 * Return the name of the template a usage in this template refers to, which
+	 * for references like {@code ::header} is this template.
+	 * 
+	 * @param usage
+	 * @return
+	 */
+	String getTargetTemplateName(FragmentUsage usage) {
 
-		return fragments
+		return usage.reference.selfReference ? name : usage.reference.templateName
 	}
 }
@@ -8,6 +8,8 @@
 
 package org.thymeleaf.extras.eclipse.dialect.xml;
 
+import groovy.lang.Tuple2;
+
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -160,5 +162,30 @@ public abstract class DialectItem {
 
 		this.dialect = dialect;
 	}
+
+	@XmlTransient
+	protected volatile Tuple2<String,String> renderedDocumentation;
+
+	/**
+	 * Gets the documentation rendered for this object, along with the Javadocs
+	 * it was rendered from if any.
+	 * 
+	 * @return Tuple of the Javadocs and rendered documentation, or <tt>null</tt>
+	 *         if the documentation hasn't been rendered yet.
+	 */
+	public Tuple2<String,String> getRenderedDocumentation() {
+
+		return renderedDocumentation;
+	}
+
+	/**
+	 * Set the documentation rendered for this object.
+	 * 
+	 * @param renderedDocumentation
+	 */
+	public void setRenderedDocumentation(Tuple2<String,String> renderedDocumentation) {
+
+		this.renderedDocumentation = renderedDocumentation;
+	}
 				
 }
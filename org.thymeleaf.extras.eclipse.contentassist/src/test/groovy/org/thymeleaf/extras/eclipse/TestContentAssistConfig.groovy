@@ -21,11 +21,16 @@ import org.eclipse.jface.resource.ImageRegistry
 import org.eclipse.ui.IWorkbench
 import org.springframework.context.annotation.Bean
 import org.springframework.context.annotation.Configuration
+import org.thymeleaf.extras.eclipse.dialect.DialectIndexStore
 import org.thymeleaf.extras.eclipse.dialect.XmlDialectLoader
 import org.thymeleaf.extras.eclipse.dialect.cache.DialectCache
 import org.thymeleaf.extras.eclipse.dialect.cache.DialectChangeListener
-import org.thymeleaf.extras.eclipse.dialect.cache.DialectItemProcessor
 import org.thymeleaf.extras.eclipse.dialect.cache.DialectTree
+import org.thymeleaf.extras.eclipse.dialect.cache.DocumentationRenderer
+import org.thymeleaf.extras.eclipse.dialect.cache.ExpressionObjectMethodCache
+import org.thymeleaf.extras.eclipse.dialect.cache.JavadocCache
+import org.thymeleaf.extras.eclipse.dialect.cache.ProjectTypeCache
+import org.thymeleaf.extras.eclipse.resources.ScanExecutor
 import static org.mockito.Mockito.mock
 
 /**
@@ -47,8 +52,8 @@ class TestContentAssistConfig {
 	}
 
 	@Bean
-	DialectItemProcessor dialectItemProcessor() {
-		return new DialectItemProcessor()
+	DialectIndexStore dialectIndexStore() {
+		return new DialectIndexStore()
 	}
 
 	@Bean
@@ -56,6 +61,16 @@ class TestContentAssistConfig {
 		return new DialectTree()
 	}
 
+	@Bean
+	DocumentationRenderer documentationRenderer() {
+		return new DocumentationRenderer()
+	}
+
+	@Bean
+	ExpressionObjectMethodCache expressionObjectMethodCache() {
+		return new ExpressionObjectMethodCache()
+	}
+
 	@Bean
 	ImageRegistry imageRegistry() {
 		return mock(ImageRegistry)
@@ -71,6 +86,21 @@ class TestContentAssistConfig {
 		return mock(IWorkspace)
 	}
 
+	@Bean
+	JavadocCache javadocCache() {
+		return new JavadocCache()
+	}
+
+	@Bean
+	ProjectTypeCache projectTypeCache() {
+		return new ProjectTypeCache()
+	}
+
+	@Bean
+	ScanExecutor scanExecutor() {
+		return new ScanExecutor()
+	}
+
 	@Bean
 	XmlDialectLoader xmlDialectLoader() {
 		return new XmlDialectLoader()
@@ -27,6 +27,8 @@ import org.thymeleaf.extras.eclipse.autocomplete.generators.AttributeProcessorPr
 import org.thymeleaf.extras.eclipse.autocomplete.generators.AttributeRestrictionProposalGenerator
 import org.thymeleaf.extras.eclipse.autocomplete.generators.ElementProcessorProposalGenerator
 import org.thymeleaf.extras.eclipse.autocomplete.generators.ExpressionObjectProposalGenerator
+import org.thymeleaf.extras.eclipse.autocomplete.generators.FragmentProposalGenerator
+import org.thymeleaf.extras.eclipse.wrappers.JavaProjectLocator
 import static org.junit.jupiter.api.Assertions.*
 import static org.mockito.Mockito.*
 
@@ -49,7 +51,9 @@ class CompletionProposalComputerTests {
 				mock(ElementProcessorProposalGenerator),
 				mock(AttributeProcessorProposalGenerator),
 				mock(AttributeRestrictionProposalGenerator),
-				mock(ExpressionObjectProposalGenerator)
+				mock(ExpressionObjectProposalGenerator),
+				mock(FragmentProposalGenerator),
+				mock(JavaProjectLocator)
 			)
 		}
 	}
@@ -18,6 +18,7 @@ package org.thymeleaf.extras.eclipse.autocomplete.generators
 
 import org.eclipse.core.resources.IFile
 import org.eclipse.core.resources.IProject
+import org.eclipse.core.runtime.jobs.Job
 import org.eclipse.jdt.core.IJavaProject
 import org.eclipse.jdt.core.IPackageFragment
 import org.eclipse.jdt.core.IPackageFragmentRoot
@@ -31,6 +32,8 @@ import org.springframework.context.annotation.Bean
 import org.springframework.context.annotation.Configuration
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig
 import org.thymeleaf.extras.eclipse.TestContentAssistConfig
+import org.thymeleaf.extras.eclipse.autocomplete.ContentAssistContext
+import org.thymeleaf.extras.eclipse.dialect.cache.DialectLoadJob
 import org.thymeleaf.extras.eclipse.nature.ThymeleafNature
 import org.thymeleaf.extras.eclipse.wrappers.JavaProjectLocator
 import static org.junit.jupiter.api.Assertions.*
@@ -90,10 +93,9 @@ class AttributeProcessorProposalGeneratorTests {
 	@Test
 	void mock() {
 
-		def results = attributeProcessorProposalGenerator.generate(
-			mock(IDOMNode), mock(ITextRegion), mock(IStructuredDocumentRegion),
-			mock(IStructuredDocument), 0)
-		assertEquals(results, [])
+		def context = new ContentAssistContext(mock(IDOMNode), mock(ITextRegion), mock(IStructuredDocumentRegion),
+			mock(IStructuredDocument), 0, javaProjectLocator)
+		assertFalse(attributeProcessorProposalGenerator.appliesTo(context))
 	}
 
 	@Test
@@ -101,9 +103,7 @@ class AttributeProcessorProposalGeneratorTests {
 
 		def xmlBytes = this.class.classLoader.getResourceAsStream('Test-Dialect.xml').bytes
 		def xmlFile = mock(IFile)
-		when(xmlFile.getContents())
-			.thenReturn(new ByteArrayInputStream(xmlBytes))
-			.thenReturn(new ByteArrayInputStream(xmlBytes)) // TODO: See the note in ProjectDependencyDialectLocator
+		when(xmlFile.getContents()).thenReturn(new ByteArrayInputStream(xmlBytes))
 		when(xmlFile.getName()).thenReturn('Test-Dialect.xml')
 
 		def packageFragment = mock(IPackageFragment)
@@ -122,8 +122,19 @@ class AttributeProcessorProposalGeneratorTests {
 
 		// Have to use .getFirstChild() as isFirstChild is an internal method in the
 		// Apache Xerces implementation of Document 🙃
-		def results = attributeProcessorProposalGenerator.generate(document.getFirstChild(), mock(ITextRegion),
-			mock(IStructuredDocumentRegion), createDocument(html), 39)
+		def generate = { ->
+			def context = new ContentAssistContext(document.getFirstChild(), mock(ITextRegion),
+				mock(IStructuredDocumentRegion), createDocument(html), 39, javaProjectLocator)
+			assertTrue(attributeProcessorProposalGenerator.appliesTo(context))
+			return attributeProcessorProposalGenerator.generate(context)
+		}
+
+		// The first request starts loading dialects in the background without
+		// waiting for it, so wait for that to finish before asking again
+		generate()
+		Job.jobManager.join(DialectLoadJob, null)
+
+		def results = generate()
 		assertEquals(
 			[ 'plugin:test1', 'plugin:test2', 'data-plugin-test1', 'data-plugin-test2' ],
 			results.collect { it.displayString }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.dialect
+
+import org.eclipse.core.runtime.IPath
+import org.eclipse.core.runtime.Path
+import org.eclipse.jdt.core.IPackageFragmentRoot
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import static org.junit.jupiter.api.Assertions.*
+import static org.mockito.Mockito.*
+
+/**
+ * Tests for the {@link DialectIndexStore}, which keeps the dialect files found
+ * in jars on disk between Eclipse sessions.
+ *
+ * @author Emanuel Rabina
+ */
+class DialectIndexStoreTests {
+
+	private File tempDirectory
+	private File archiveFile
+	private IPackageFragmentRoot packageFragmentRoot
+	private Map<IPath,byte[]> dialectFiles
+
+	/**
+	 * Create a store that keeps its files in the temporary directory, so that
+	 * nothing is remembered in memory from any other store.
+	 *
+	 * @return
+	 */
+	private DialectIndexStore createStore() {
+
+		return new DialectIndexStore(new Path(new File(tempDirectory, 'state').absolutePath))
+	}
+
+	@BeforeEach
+	void setup(@TempDir File tempDirectory) {
+
+		this.tempDirectory = tempDirectory
+		archiveFile = new File(tempDirectory, 'dialect.jar')
+		archiveFile.bytes = [1, 2, 3] as byte[]
+		archiveFile.lastModified = 1000000000000L
+
+		packageFragmentRoot = mock(IPackageFragmentRoot)
+		when(packageFragmentRoot.archive).thenReturn(true)
+		when(packageFragmentRoot.path).thenReturn(new Path(archiveFile.absolutePath))
+		when(packageFragmentRoot.elementName).thenReturn(archiveFile.name)
+
+		dialectFiles = [
+			(new Path('META-INF/dialect.xml')): '<dialect prefix="test"/>'.getBytes('UTF-8')
+		]
+	}
+
+	@Test
+	void savedDialectFilesAreLoadedBack() {
+
+		createStore().save(packageFragmentRoot, dialectFiles)
+		def loadedDialectFiles = createStore().load(packageFragmentRoot)
+
+		assertEquals([new Path('META-INF/dialect.xml')], loadedDialectFiles.keySet() as List)
+		assertArrayEquals(dialectFiles.values().first(), loadedDialectFiles.values().first())
+	}
+
+	@Test
+	void unscannedArchiveNeedsScanning() {
+
+		assertNull(createStore().load(packageFragmentRoot))
+	}
+
+	@Test
+	void changedArchiveSizeNeedsRescanning() {
+
+		createStore().save(packageFragmentRoot, dialectFiles)
+		archiveFile.bytes = [1, 2, 3, 4] as byte[]
+		archiveFile.lastModified = 1000000000000L
+
+		assertNull(createStore().load(packageFragmentRoot))
+	}
+
+	@Test
+	void changedArchiveTimestampNeedsRescanning() {
+
+		createStore().save(packageFragmentRoot, dialectFiles)
+		archiveFile.lastModified = 1000000001000L
+
+		assertNull(createStore().load(packageFragmentRoot))
+	}
+
+	@Test
+	void entriesOfAnotherFormatVersionAreDiscarded() {
+
+		createStore().save(packageFragmentRoot, dialectFiles)
+		def indexFiles = new File(tempDirectory, 'state/dialect-index').listFiles()
+		assertEquals(1, indexFiles.length)
+
+		// Rewrite the leading format version as if saved by an older version
+		def contents = indexFiles[0].bytes
+		def output = new ByteArrayOutputStream()
+		new DataOutputStream(output).writeInt(DialectIndexStore.FORMAT_VERSION - 1)
+		System.arraycopy(output.toByteArray(), 0, contents, 0, 4)
+		indexFiles[0].bytes = contents
+
+		assertNull(createStore().load(packageFragmentRoot))
+	}
+}
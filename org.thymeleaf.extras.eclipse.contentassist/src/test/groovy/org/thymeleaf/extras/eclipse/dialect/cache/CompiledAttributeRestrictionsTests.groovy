@@ -0,0 +1,94 @@
+/*
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.dialect.cache
+
+import org.junit.jupiter.api.Test
+import org.thymeleaf.extras.eclipse.dialect.xml.AttributeRestrictions
+import org.w3c.dom.NamedNodeMap
+import static org.junit.jupiter.api.Assertions.*
+
+import groovy.xml.DOMBuilder
+
+/**
+ * Tests for the {@link CompiledAttributeRestrictions}, which check where an
+ * attribute processor can be used.
+ *
+ * @author Emanuel Rabina
+ */
+class CompiledAttributeRestrictionsTests {
+
+	/**
+	 * Return the attributes of the root element of the given HTML.
+	 *
+	 * @param html
+	 * @return
+	 */
+	private static NamedNodeMap attributesOf(String html) {
+
+		return DOMBuilder.newInstance().parseText(html).documentElement.attributes
+	}
+
+	/**
+	 * Compile restrictions made of the given tags and attributes.
+	 *
+	 * @param tags
+	 * @param attributes
+	 * @return
+	 */
+	private static CompiledAttributeRestrictions compile(List<String> tags, List<String> attributes) {
+
+		def restrictions = new AttributeRestrictions()
+		restrictions.tags.addAll(tags)
+		restrictions.attributes.addAll(attributes)
+		return new CompiledAttributeRestrictions(restrictions)
+	}
+
+	@Test
+	void allowedAndExcludedTags() {
+
+		def restrictions = compile(['script', 'style'], [])
+		assertTrue(restrictions.allowsTag('script'))
+		assertFalse(restrictions.allowsTag('div'))
+
+		restrictions = compile(['-div'], [])
+		assertNull(restrictions.allowedTags)
+		assertTrue(restrictions.allowsTag('script'))
+		assertFalse(restrictions.allowsTag('div'))
+	}
+
+	@Test
+	void attributePresence() {
+
+		def restrictions = compile([], ['data-th-each', '-data-th-if'])
+		assertTrue(restrictions.allowsAttributes(attributesOf('<div data-th-each="x"/>')))
+		assertFalse(restrictions.allowsAttributes(attributesOf('<div/>')))
+		assertFalse(restrictions.allowsAttributes(attributesOf('<div data-th-each="x" data-th-if="y"/>')))
+	}
+
+	@Test
+	void attributeValue() {
+
+		def restrictions = compile([], ['type=text/javascript'])
+		assertTrue(restrictions.allowsAttributes(attributesOf('<script type="text/javascript"/>')))
+		assertFalse(restrictions.allowsAttributes(attributesOf('<script type="text/css"/>')))
+		assertFalse(restrictions.allowsAttributes(attributesOf('<script/>')))
+
+		restrictions = compile([], ['-type=text/css'])
+		assertTrue(restrictions.allowsAttributes(attributesOf('<script type="text/javascript"/>')))
+		assertFalse(restrictions.allowsAttributes(attributesOf('<script type="text/css"/>')))
+	}
+}
@@ -20,6 +20,9 @@ import org.eclipse.jdt.core.IJavaProject
 import org.junit.jupiter.api.Test
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig
 import org.thymeleaf.extras.eclipse.TestContentAssistConfig
+import org.thymeleaf.extras.eclipse.dialect.xml.Dialect
+import org.thymeleaf.extras.eclipse.dialect.xml.Documentation
+import org.thymeleaf.extras.eclipse.dialect.xml.ExpressionObjectMethod
 import static org.junit.jupiter.api.Assertions.*
 import static org.mockito.Mockito.*
 
@@ -43,4 +46,20 @@ class DialectCacheTests {
 		System.out.println('Hello!')
 		assertEquals(dialectCache.getAttributeProcessor(mock(IJavaProject), null), null)
 	}
+
+	@Test
+	void equalItemsKeepTheirOwnDocumentation() {
+
+		def standardMethod = new ExpressionObjectMethod(name: 'temporals.format',
+			documentation: new Documentation(value: 'Standard format'))
+		standardMethod.dialect = new Dialect(prefix: 'th', namespaceUri: 'http://www.thymeleaf.org')
+		def extrasMethod = new ExpressionObjectMethod(name: 'temporals.format',
+			documentation: new Documentation(value: 'Java 8 time format'))
+		extrasMethod.dialect = new Dialect(prefix: 'th', namespaceUri: 'http://www.thymeleaf.org')
+		assertEquals(standardMethod, extrasMethod)
+
+		assertEquals('Standard format', dialectCache.getDocumentation(null, standardMethod))
+		assertEquals('Java 8 time format', dialectCache.getDocumentation(null, extrasMethod))
+		assertEquals('Standard format', dialectCache.getDocumentation(null, standardMethod))
+	}
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.dialect.cache
+
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.thymeleaf.extras.eclipse.dialect.xml.AttributeProcessor
+import org.thymeleaf.extras.eclipse.dialect.xml.Dialect
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Tests for the {@link DialectItemIndex}, which is used to look up dialect
+ * items by the start of their names.
+ *
+ * @author Emanuel Rabina
+ */
+class DialectItemIndexTests {
+
+	private DialectItemIndex<AttributeProcessor> dialectItemIndex
+
+	/**
+	 * Create an attribute processor for the given dialect.
+	 *
+	 * @param dialect
+	 * @param name
+	 * @return
+	 */
+	private static AttributeProcessor createAttributeProcessor(Dialect dialect, String name) {
+
+		def attributeProcessor = new AttributeProcessor(name: name)
+		attributeProcessor.dialect = dialect
+		return attributeProcessor
+	}
+
+	@BeforeEach
+	void setup() {
+
+		def layoutDialect = new Dialect(prefix: 'layout', namespaceUri: 'http://www.ultraq.net.nz/thymeleaf/layout')
+		def standardDialect = new Dialect(prefix: 'th', namespaceUri: 'http://www.thymeleaf.org')
+
+		dialectItemIndex = new DialectItemIndex<AttributeProcessor>([
+			createAttributeProcessor(layoutDialect, 'decorate'),
+			createAttributeProcessor(layoutDialect, 'fragment'),
+			createAttributeProcessor(standardDialect, 'text'),
+			createAttributeProcessor(standardDialect, 'utext'),
+			createAttributeProcessor(standardDialect, 'with')
+		], { AttributeProcessor processor -> [processor.fullName, processor.fullDataName] })
+	}
+
+	@Test
+	void emptyPatternReturnsAllItemsInOriginalOrder() {
+
+		assertEquals(
+			['layout:decorate', 'layout:fragment', 'th:text', 'th:utext', 'th:with'],
+			dialectItemIndex.findBestMatches('', null, 5, null).collect { it.item.fullName }
+		)
+	}
+
+	@Test
+	void findBestMatchesReturnsPrefixMatchesInOriginalOrder() {
+
+		assertEquals(
+			['th:text', 'th:utext', 'th:with'],
+			dialectItemIndex.findBestMatches('th:', null, 10, null).collect { it.name }
+		)
+		assertEquals(
+			['th:utext'],
+			dialectItemIndex.findBestMatches('TH:U', null, 10, null).collect { it.name }
+		)
+	}
+
+	@Test
+	void findByNameMatchesAnyName() {
+
+		assertEquals(['th:utext'], dialectItemIndex.findByName('th:utext').collect { it.fullName })
+		assertEquals(['th:utext'], dialectItemIndex.findByName('data-th-utext').collect { it.fullName })
+		assertEquals([], dialectItemIndex.findByName('th:ute'))
+		assertEquals([], dialectItemIndex.findByName(null))
+	}
+
+	@Test
+	void findBestMatchesMatchesDataAttributeNames() {
+
+		assertEquals(
+			['data-layout-decorate', 'data-layout-fragment'],
+			dialectItemIndex.findBestMatches('data-layout-', null, 10, null).collect { it.name }
+		)
+	}
+
+	@Test
+	void findBestMatchesWithNoMatchesReturnsEmptyList() {
+
+		assertEquals([], dialectItemIndex.findBestMatches('sec:', null, 10, null))
+		assertEquals([], dialectItemIndex.findBestMatches('zzz', null, 10, null))
+	}
+
+	@Test
+	void findBestMatchesOnlyScoresOtherNamesWhenShortOfPrefixMatches() {
+
+		def filtered = []
+		def filter = { AttributeProcessor processor, String name ->
+			filtered << name
+			return true
+		}
+
+		// 1 prefix match fills the limit, so th:utext is never considered
+		assertEquals(['th:text'], dialectItemIndex.findBestMatches('th:te', null, 1, filter).collect { it.name })
+		assertEquals(['th:text'], filtered)
+
+		filtered.clear()
+		assertEquals(['th:text', 'th:utext'], dialectItemIndex.findBestMatches('th:te', null, 2, filter).collect { it.name })
+		assertEquals(['th:text', 'th:utext'], filtered)
+	}
+
+	@Test
+	void findBestMatchesOnlyReturnsCandidates() {
+
+		def candidates = new BitSet()
+		candidates.set(3)
+		assertEquals(['th:utext'], dialectItemIndex.findBestMatches('th:', candidates, 10, null).collect { it.name })
+		assertEquals(['th:utext'], dialectItemIndex.findBestMatches('th:t', candidates, 10, null).collect { it.name })
+	}
+
+	@Test
+	void findBestMatchesRanksBetterMatchesFirst() {
+
+		assertEquals(
+			['th:text', 'th:utext'],
+			dialectItemIndex.findBestMatches('th:te', null, 10, null).collect { it.name }
+		)
+	}
+
+	@Test
+	void findBestMatchesReturnsOnlyTheBestMatches() {
+
+		assertEquals(
+			['layout:decorate', 'layout:fragment', 'th:text'],
+			dialectItemIndex.findBestMatches('', null, 3, null).collect { it.name }
+		)
+	}
+
+	@Test
+	void findBestMatchesAppliesFilterBeforeLimit() {
+
+		def matches = dialectItemIndex.findBestMatches('th:', null, 2) { AttributeProcessor processor, String name ->
+			return processor.name != 'text'
+		}
+		assertEquals(['th:utext', 'th:with'], matches.collect { it.name })
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.dialect.cache
+
+import org.junit.jupiter.api.Test
+import org.thymeleaf.extras.eclipse.dialect.xml.AttributeProcessor
+import org.thymeleaf.extras.eclipse.dialect.xml.AttributeRestrictions
+import org.thymeleaf.extras.eclipse.dialect.xml.Dialect
+import org.thymeleaf.extras.eclipse.dialect.xml.Documentation
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Tests for the {@link DocumentationRenderer}, which creates the HTML shown
+ * for dialect items in content assist and hovers.
+ *
+ * @author Emanuel Rabina
+ */
+class DocumentationRendererTests {
+
+	private final DocumentationRenderer documentationRenderer = new DocumentationRenderer()
+
+	/**
+	 * Create an attribute processor for a test dialect.
+	 *
+	 * @param name
+	 * @return
+	 */
+	private static AttributeProcessor createAttributeProcessor(String name) {
+
+		def attributeProcessor = new AttributeProcessor(name: name)
+		attributeProcessor.dialect = new Dialect(prefix: 'th', namespaceUri: 'http://www.thymeleaf.org')
+		return attributeProcessor
+	}
+
+	@Test
+	void nothingToRender() {
+
+		assertNull(documentationRenderer.render(createAttributeProcessor('text'), null))
+	}
+
+	@Test
+	void rendersSeeAlsoAndReference() {
+
+		def documentation = new Documentation(value: 'Sets the text', reference: 'Section 1')
+		documentation.seeAlso.addAll(['utext', 'layout:fragment', '#strings.trim'])
+
+		assertEquals(
+			'Sets the text<br/><dl><dt>See also:</dt><dd>th:utext, layout:fragment, #strings.trim</dd>' +
+				'<dt>Reference:</dt><dd>Section 1</dd></dl>',
+			documentationRenderer.render(createAttributeProcessor('text'), documentation)
+		)
+	}
+
+	@Test
+	void rendersRestrictions() {
+
+		def attributeProcessor = createAttributeProcessor('inline')
+		attributeProcessor.restrictions = new AttributeRestrictions()
+		attributeProcessor.restrictions.tags.addAll(['script', '-div'])
+		attributeProcessor.restrictions.values.addAll(['text', 'javascript'])
+
+		assertEquals(
+			'<dl><dt>Must appear in tag(s):</dt><dd>script</dd><dt>Cannot appear in tag(s):</dt><dd>div</dd>' +
+				'<dt>Possible value(s):</dt><dd>text, javascript</dd></dl>',
+			documentationRenderer.render(attributeProcessor, null)
+		)
+	}
+}
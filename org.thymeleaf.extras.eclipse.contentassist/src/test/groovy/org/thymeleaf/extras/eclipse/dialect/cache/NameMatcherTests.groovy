@@ -0,0 +1,74 @@
+/*
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.dialect.cache
+
+import org.junit.jupiter.api.Test
+import static org.thymeleaf.extras.eclipse.dialect.cache.NameMatcher.*
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Tests for the {@link NameMatcher}, which rates how well what has been typed
+ * matches a dialect item name.
+ *
+ * @author Emanuel Rabina
+ */
+class NameMatcherTests {
+
+	@Test
+	void prefixesAndExactNames() {
+
+		def matcher = new NameMatcher('th:utext')
+		assertEquals(EXACT, matcher.match('th:utext'))
+		assertEquals(PREFIX, matcher.match('th:ut'))
+		assertEquals(PREFIX, matcher.match(''))
+	}
+
+	@Test
+	void startsOfWords() {
+
+		assertEquals(WORD_STARTS, new NameMatcher('#dates.createNow').match('#d.cn'))
+		assertEquals(WORD_STARTS, new NameMatcher('data-th-text').match('dtt'))
+		assertEquals(NO_MATCH, new NameMatcher('#dates.createNow').match('#d.co'))
+	}
+
+	@Test
+	void substringsAfterPrefix() {
+
+		def matcher = new NameMatcher('th:utext')
+		assertEquals(SUBSTRING, matcher.match('th:ext'))
+		assertEquals(SUBSTRING, matcher.match('tex'))
+		assertEquals(NO_MATCH, matcher.match('sec:ext'))
+		assertEquals(NO_MATCH, matcher.match('th:txe'))
+	}
+
+	@Test
+	void matchesIgnoresCase() {
+
+		assertTrue(NameMatcher.matches('#dates.createNow', '#dates.createnow'))
+		assertTrue(NameMatcher.matches('th:utext', 'TH:UT'))
+		assertFalse(NameMatcher.matches('th:utext', 'th:with'))
+	}
+
+	@Test
+	void preparedMatcherCanBeReused() {
+
+		def matcher = new NameMatcher('#dates.createNow')
+		assertTrue(matcher.matches('#D'))
+		assertTrue(matcher.matches('#d.cN'))
+		assertFalse(matcher.matches('#d.co'))
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.dialect.cache
+
+import org.eclipse.jdt.core.IJavaProject
+import org.eclipse.jdt.core.IType
+import org.junit.jupiter.api.Test
+import static org.junit.jupiter.api.Assertions.*
+import static org.mockito.Mockito.*
+
+/**
+ * Tests for the {@link ProjectTypeCache}, which remembers the types found for
+ * class names in each project.
+ *
+ * @author Emanuel Rabina
+ */
+class ProjectTypeCacheTests {
+
+	private final ProjectTypeCache projectTypeCache = new ProjectTypeCache()
+
+	@Test
+	void typeIsOnlySearchedForOnce() {
+
+		def type = mock(IType)
+		def project = mock(IJavaProject)
+		when(project.findType('org.example.Processor')).thenReturn(type)
+
+		assertSame(type, projectTypeCache.findType(project, 'org.example.Processor'))
+		assertSame(type, projectTypeCache.findType(project, 'org.example.Processor'))
+		verify(project, times(1)).findType('org.example.Processor')
+	}
+
+	@Test
+	void missingTypeIsOnlySearchedForOnce() {
+
+		def project = mock(IJavaProject)
+
+		assertNull(projectTypeCache.findType(project, 'org.example.Missing'))
+		assertNull(projectTypeCache.findType(project, 'org.example.Missing'))
+		verify(project, times(1)).findType('org.example.Missing')
+	}
+
+	@Test
+	void typesAreKeptPerProject() {
+
+		def type1 = mock(IType)
+		def project1 = mock(IJavaProject)
+		when(project1.findType('org.example.Processor')).thenReturn(type1)
+		def type2 = mock(IType)
+		def project2 = mock(IJavaProject)
+		when(project2.findType('org.example.Processor')).thenReturn(type2)
+
+		assertSame(type1, projectTypeCache.findType(project1, 'org.example.Processor'))
+		assertSame(type2, projectTypeCache.findType(project2, 'org.example.Processor'))
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.resources
+
+import org.eclipse.core.runtime.Path
+import org.eclipse.jdt.core.IJavaProject
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import static org.junit.jupiter.api.Assertions.*
+import static org.mockito.Mockito.*
+
+/**
+ * Tests for the {@link ResourceTree}, which keeps the resources of each
+ * project.
+ *
+ * @author Emanuel Rabina
+ */
+class ResourceTreeTests {
+
+	private ResourceTree<String> resourceTree
+	private IJavaProject project
+	private IJavaProject otherProject
+
+	@BeforeEach
+	void setup() {
+
+		resourceTree = new ResourceTree<String>()
+		project = mock(IJavaProject)
+		otherProject = mock(IJavaProject)
+	}
+
+	@Test
+	void addResourceCreatesTheProject() {
+
+		def path = new Path('/project/templates/index.html')
+		resourceTree.addResourceToProject(project, path, 'index')
+
+		assertTrue(resourceTree.containsProject(project))
+		assertEquals('index', resourceTree.getResource(project, path))
+		assertEquals(['index'], resourceTree.getResourcesForProject(project) as List)
+	}
+
+	@Test
+	void addResourceReplacesResourceAtTheSamePath() {
+
+		def path = new Path('/project/templates/index.html')
+		resourceTree.addResourceToProject(project, path, 'index')
+		resourceTree.addResourceToProject(project, path, 'index-changed')
+
+		assertEquals('index-changed', resourceTree.getResource(project, path))
+		assertEquals(1, resourceTree.getResourcesForProject(project).size())
+	}
+
+	@Test
+	void addResourcesAddsToAnExistingProject() {
+
+		resourceTree.addResourceToProject(project, new Path('/project/templates/index.html'), 'index')
+		resourceTree.addResourcesToProject(project, [
+			(new Path('/project/templates/layout.html')): 'layout',
+			(new Path('/project/templates/footer.html')): 'footer'
+		])
+
+		assertEquals(['footer', 'index', 'layout'], resourceTree.getResourcesForProject(project).sort())
+	}
+
+	@Test
+	void addResourcesWithNoResourcesOnlyAddsTheProject() {
+
+		resourceTree.addResourcesToProject(project, [:])
+
+		assertTrue(resourceTree.containsProject(project))
+		assertEquals([], resourceTree.getResourcesForProject(project) as List)
+	}
+
+	@Test
+	void removeResourceLeavesOtherResources() {
+
+		def indexPath = new Path('/project/templates/index.html')
+		def layoutPath = new Path('/project/templates/layout.html')
+		resourceTree.addResourcesToProject(project, [(indexPath): 'index', (layoutPath): 'layout'])
+		resourceTree.removeResourceFromProject(project, indexPath)
+
+		assertNull(resourceTree.getResource(project, indexPath))
+		assertEquals('layout', resourceTree.getResource(project, layoutPath))
+		assertTrue(resourceTree.containsProject(project))
+	}
+
+	@Test
+	void removeProjectRemovesAllItsResources() {
+
+		def path = new Path('/project/templates/index.html')
+		resourceTree.addResourceToProject(project, path, 'index')
+		resourceTree.addResourceToProject(otherProject, new Path('/other/templates/index.html'), 'other')
+		resourceTree.removeProject(project)
+
+		assertFalse(resourceTree.containsProject(project))
+		assertNull(resourceTree.getResource(project, path))
+		assertEquals([], resourceTree.getResourcesForProject(project) as List)
+		assertTrue(resourceTree.containsProject(otherProject))
+	}
+
+	@Test
+	void missingProjectHasNoResources() {
+
+		def path = new Path('/project/templates/index.html')
+
+		assertFalse(resourceTree.containsProject(project))
+		assertFalse(resourceTree.containsProject(null))
+		assertNull(resourceTree.getResource(project, path))
+		assertEquals([], resourceTree.getResourcesForProject(project) as List)
+	}
+
+	@Test
+	void removeFromMissingProjectDoesNotCreateIt() {
+
+		resourceTree.removeResourceFromProject(project, new Path('/project/templates/index.html'))
+		resourceTree.removeProject(project)
+
+		assertFalse(resourceTree.containsProject(project))
+	}
+}
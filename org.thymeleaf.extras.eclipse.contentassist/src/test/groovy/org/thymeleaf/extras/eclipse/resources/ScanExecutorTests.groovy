@@ -0,0 +1,136 @@
+/*
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.resources
+
+import org.eclipse.core.runtime.NullProgressMonitor
+import org.eclipse.core.runtime.OperationCanceledException
+import org.eclipse.jface.preference.IPreferenceStore
+import org.eclipse.jface.util.IPropertyChangeListener
+import org.eclipse.jface.util.PropertyChangeEvent
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.mockito.ArgumentCaptor
+import static org.junit.jupiter.api.Assertions.*
+import static org.mockito.Mockito.*
+import static org.thymeleaf.extras.eclipse.ContentAssistPreferenceInitializer.*
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * Tests for the {@link ScanExecutor}, which runs the scanning work of all
+ * resource locators.
+ *
+ * @author Emanuel Rabina
+ */
+class ScanExecutorTests {
+
+	private IPreferenceStore preferences
+	private ScanExecutor scanExecutor
+	private CountDownLatch releaseWorker
+
+	/**
+	 * Keep the executor's only thread busy until {@link #releaseWorker} is
+	 * counted down, so that anything submitted after it is queued.
+	 */
+	private void blockWorker() {
+
+		def workerStarted = new CountDownLatch(1)
+		scanExecutor.submit(null, { ->
+			workerStarted.countDown()
+			releaseWorker.await()
+		} as Callable)
+		assertTrue(workerStarted.await(5, TimeUnit.SECONDS))
+	}
+
+	@BeforeEach
+	void setup() {
+
+		preferences = mock(IPreferenceStore)
+		when(preferences.getInt(SCAN_PARALLELISM_PREF)).thenReturn(1)
+		scanExecutor = new ScanExecutor(preferences)
+		scanExecutor.init()
+		releaseWorker = new CountDownLatch(1)
+	}
+
+	@AfterEach
+	void cleanup() {
+
+		releaseWorker.countDown()
+		scanExecutor.close()
+	}
+
+	@Test
+	void fullQueueRunsWorkOnTheSubmittingThread() {
+
+		blockWorker()
+		ScanExecutor.QUEUE_CAPACITY.times {
+			scanExecutor.submit(null, { -> Thread.currentThread() } as Callable<Thread>)
+		}
+
+		def overflowTask = scanExecutor.submit(null, { -> Thread.currentThread() } as Callable<Thread>)
+		assertTrue(overflowTask.done)
+		assertSame(Thread.currentThread(), overflowTask.get())
+		assertEquals(ScanExecutor.QUEUE_CAPACITY, scanExecutor.queueDepth)
+	}
+
+	@Test
+	void queuedWorkIsSkippedOnceItsMonitorIsCancelled() {
+
+		def monitor = new NullProgressMonitor()
+		blockWorker()
+		def taskRan = false
+		def task = scanExecutor.submit(monitor, { -> taskRan = true } as Callable<Boolean>)
+
+		monitor.canceled = true
+		releaseWorker.countDown()
+
+		assertNull(task.get(5, TimeUnit.SECONDS))
+		assertFalse(taskRan)
+		assertEquals(1, scanExecutor.tasksCancelled)
+	}
+
+	@Test
+	void workCantBeSubmittedWithACancelledMonitor() {
+
+		def monitor = new NullProgressMonitor()
+		monitor.canceled = true
+
+		assertThrows(OperationCanceledException) { ->
+			scanExecutor.submit(monitor, { -> true } as Callable<Boolean>)
+		}
+		assertEquals(0, scanExecutor.tasksSubmitted)
+	}
+
+	@Test
+	void parallelismFollowsThePreference() {
+
+		def listenerCaptor = ArgumentCaptor.forClass(IPropertyChangeListener)
+		verify(preferences).addPropertyChangeListener(listenerCaptor.capture())
+		assertEquals(1, scanExecutor.parallelism)
+
+		when(preferences.getInt(SCAN_PARALLELISM_PREF)).thenReturn(3)
+		listenerCaptor.value.propertyChange(new PropertyChangeEvent(preferences, SCAN_PARALLELISM_PREF, 1, 3))
+		assertEquals(3, scanExecutor.parallelism)
+
+		when(preferences.getInt(SCAN_PARALLELISM_PREF)).thenReturn(2)
+		listenerCaptor.value.propertyChange(new PropertyChangeEvent(preferences, SCAN_PARALLELISM_PREF, 3, 2))
+		assertEquals(2, scanExecutor.parallelism)
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.template
+
+import org.attoparser.MarkupParser
+import org.attoparser.config.ParseConfiguration
+import org.junit.jupiter.api.Test
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Tests for the {@link FragmentMarkupHandler}, which picks out the fragments
+ * defined and used in a template as it's being parsed.
+ *
+ * @author Emanuel Rabina
+ */
+class FragmentMarkupHandlerTests {
+
+	/**
+	 * Parse a template with a small parser buffer, so that the template is read
+	 * over several reads.
+	 *
+	 * @param template
+	 * @return
+	 */
+	private static FragmentMarkupHandler parse(String template) {
+
+		def parser = new MarkupParser(ParseConfiguration.htmlConfiguration(), 16, 2)
+		def reader = new LineOffsetReader(new StringReader(template))
+		def handler = new FragmentMarkupHandler(reader, null)
+		parser.parse(reader, handler)
+		return handler
+	}
+
+	@Test
+	void findsFragmentAttributes() {
+
+		def handler = parse('''<!DOCTYPE html>
+<html xmlns:th="http://www.thymeleaf.org">
+<body>
+	<header th:fragment="header()">Header</header>
+	<div>
+		<footer data-th-fragment="footer(year)">Footer</footer>
+	</div>
+	<p th:text="'Not a fragment'">Text</p>
+</body>
+</html>''')
+
+		assertEquals(['header', 'footer'], handler.fragments.collect { it.name })
+		assertEquals([4, 6], handler.fragments.collect { it.line })
+	}
+
+	@Test
+	void fragmentOffsetsPointToAttributeValues() {
+
+		def template = '<html>\r\n<body>\r\n\t<div th:fragment="one()"></div>\n  <br data-th-fragment=\'two()\'/>\n</body>\n</html>'
+		def handler = parse(template)
+
+		assertEquals(
+			[template.indexOf('one()'), template.indexOf('two()')],
+			handler.fragments.collect { it.offset }
+		)
+	}
+
+	@Test
+	void onlyFirstFragmentAttributeOfElementIsUsed() {
+
+		def handler = parse('<div th:fragment="first()" data-th-fragment="second()"></div><p th:fragment="third()"></p>')
+
+		assertEquals(['first', 'third'], handler.fragments.collect { it.name })
+	}
+
+	@Test
+	void findsLiteralFragmentUsages() {
+
+		def template = '''<div th:replace="~{layout/main :: header(title='Home')}"></div>
+<div data-th-insert="::footer"></div>
+<div th:include="${layout} :: menu"></div>
+<div th:replace="layout/sidebar"></div>'''
+		def handler = parse(template)
+
+		assertEquals(['layout/main', '', 'layout/sidebar'], handler.usages.collect { it.reference.templateName })
+		assertEquals(['header', 'footer', null], handler.usages.collect { it.reference.fragmentName })
+		assertEquals([1, 2, 4], handler.usages.collect { it.line })
+		assertEquals(template.indexOf('::footer'), handler.usages[1].offset)
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.template.cache
+
+import org.eclipse.core.runtime.Path
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.thymeleaf.extras.eclipse.template.model.Fragment
+import org.thymeleaf.extras.eclipse.template.model.FragmentReference
+import org.thymeleaf.extras.eclipse.template.model.FragmentUsage
+import org.thymeleaf.extras.eclipse.template.model.Template
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Tests for the {@link FragmentIndex}, which is used to look up templates and
+ * fragments by the names used in fragment expressions, and where they're
+ * used.
+ *
+ * @author Emanuel Rabina
+ */
+class FragmentIndexTests {
+
+	private FragmentIndex fragmentIndex
+	private Template mainTemplate
+	private Template indexTemplate
+
+	/**
+	 * Create a template with the given name and fragment specs.
+	 *
+	 * @param name
+	 * @param fragmentSpecs
+	 * @return
+	 */
+	private static Template createTemplate(String name, String... fragmentSpecs) {
+
+		return createTemplate(name, [], fragmentSpecs)
+	}
+
+	/**
+	 * Create a template with the given name, fragment references, and fragment
+	 * specs.
+	 *
+	 * @param name
+	 * @param references
+	 *   Fragment references as they'd appear in a {@code th:replace} attribute.
+	 * @param fragmentSpecs
+	 * @return
+	 */
+	private static Template createTemplate(String name, List<String> references, String... fragmentSpecs) {
+
+		def filePath = new Path("/project/templates/${name}.html")
+		return new Template(filePath, name,
+			fragmentSpecs.collect { fragmentSpec -> new Fragment(fragmentSpec, 1, 0) },
+			references.withIndex().collect { reference, index ->
+				new FragmentUsage(filePath, FragmentReference.parse(reference), index + 1, index * 10)
+			})
+	}
+
+	@BeforeEach
+	void setup() {
+
+		mainTemplate = createTemplate('layout/main', 'header(title)', 'footer')
+		fragmentIndex = new FragmentIndex()
+		fragmentIndex.addTemplate(mainTemplate)
+		fragmentIndex.addTemplate(createTemplate('layout/menus/sidebar', 'menu'))
+		indexTemplate = createTemplate('index', ['layout/main :: header', 'layout/main :: footer', 'layout/main', '::content'])
+		fragmentIndex.addTemplate(indexTemplate)
+	}
+
+	@Test
+	void findFragmentByTemplateAndFragmentName() {
+
+		def fragment = fragmentIndex.findFragment('layout/main', 'header')
+		assertEquals('header(title)', fragment.signature)
+		assertNull(fragmentIndex.findFragment('layout/main', 'menu'))
+		assertNull(fragmentIndex.findFragment('layout/other', 'header'))
+	}
+
+	@Test
+	void findTemplateNamesLooksInTheFolderBeingTyped() {
+
+		assertEquals(['index', 'layout/'], fragmentIndex.findTemplateNames(''))
+		assertEquals(['layout/main', 'layout/menus/'], fragmentIndex.findTemplateNames('layout/m'))
+		assertEquals(['layout/menus/sidebar'], fragmentIndex.findTemplateNames('layout/menus/'))
+		assertEquals([], fragmentIndex.findTemplateNames('other/'))
+	}
+
+	@Test
+	void removeTemplatePrunesEmptyFolders() {
+
+		fragmentIndex.removeTemplate(fragmentIndex.findTemplate('layout/menus/sidebar'))
+		assertNull(fragmentIndex.findTemplate('layout/menus/sidebar'))
+		assertEquals(['layout/main'], fragmentIndex.findTemplateNames('layout/'))
+
+		fragmentIndex.removeTemplate(mainTemplate)
+		assertEquals(['index'], fragmentIndex.findTemplateNames(''))
+	}
+
+	@Test
+	void removeTemplateIgnoresReplacedTemplates() {
+
+		def updatedTemplate = createTemplate('layout/main', 'header')
+		fragmentIndex.addTemplate(updatedTemplate)
+		fragmentIndex.removeTemplate(mainTemplate)
+		assertSame(updatedTemplate, fragmentIndex.findTemplate('layout/main'))
+	}
+
+	@Test
+	void findUsagesOfFragmentsAndTemplates() {
+
+		assertEquals([1], fragmentIndex.findUsages('layout/main', 'header').collect { it.line })
+		assertEquals([1, 2, 3], fragmentIndex.findUsages('layout/main', null).collect { it.line })
+		assertEquals([4], fragmentIndex.findUsages('index', 'content').collect { it.line })
+		assertEquals([], fragmentIndex.findUsages('layout/menus/sidebar', null))
+	}
+
+	@Test
+	void findUnresolvedReferencesFollowsTemplateChanges() {
+
+		assertEquals(['content'], fragmentIndex.findUnresolvedReferences().collect { it.reference.fragmentName })
+
+		fragmentIndex.addTemplate(createTemplate('layout/main', 'header'))
+		assertEquals(['footer'], fragmentIndex.findUnresolvedReferences('layout/main').collect { it.reference.fragmentName })
+
+		fragmentIndex.removeTemplate(fragmentIndex.findTemplate('layout/main'))
+		assertEquals([1, 2, 3], fragmentIndex.findUnresolvedReferences('layout/main').collect { it.line })
+	}
+
+	@Test
+	void removeTemplateRemovesItsUsages() {
+
+		fragmentIndex.removeTemplate(indexTemplate)
+		assertEquals([], fragmentIndex.findUsages('layout/main', null))
+		assertEquals([], fragmentIndex.findUnresolvedReferences())
+	}
+}
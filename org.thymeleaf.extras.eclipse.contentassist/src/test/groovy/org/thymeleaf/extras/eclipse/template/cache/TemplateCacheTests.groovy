@@ -0,0 +1,232 @@
+/*
+ * Copyright 2023, The Thymeleaf Project (http://www.thymeleaf.org/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.thymeleaf.extras.eclipse.template.cache
+
+import org.eclipse.core.resources.IFile
+import org.eclipse.core.resources.IFolder
+import org.eclipse.core.resources.IProject
+import org.eclipse.core.resources.IResourceChangeEvent
+import org.eclipse.core.resources.IResourceChangeListener
+import org.eclipse.core.resources.IResourceDelta
+import org.eclipse.core.resources.IResourceDeltaVisitor
+import org.eclipse.core.resources.IWorkspace
+import org.eclipse.core.runtime.Path
+import org.eclipse.jdt.core.IJavaProject
+import org.eclipse.jdt.core.JavaCore
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.mockito.ArgumentCaptor
+import org.thymeleaf.extras.eclipse.resources.ResourceTree
+import org.thymeleaf.extras.eclipse.template.ProjectTemplateLocator
+import org.thymeleaf.extras.eclipse.template.TemplateLoader
+import org.thymeleaf.extras.eclipse.template.model.Fragment
+import org.thymeleaf.extras.eclipse.template.model.Template
+import static org.eclipse.core.resources.IResourceChangeEvent.*
+import static org.junit.jupiter.api.Assertions.*
+import static org.mockito.Mockito.*
+
+/**
+ * Tests for the {@link TemplateCache}, checking that workspace changes to
+ * templates are applied to a project's fragment index.
+ *
+ * @author Emanuel Rabina
+ */
+class TemplateCacheTests {
+
+	private static final String TEMPLATE_ROOT = '/project/src/main/resources/templates'
+
+	private TemplateLoader templateLoader
+	private TemplateCache templateCache
+	private IResourceChangeListener templateChangeListener
+	private IProject project
+	private IJavaProject javaProject
+	private IFolder templateRoot
+	private FragmentIndex fragmentIndex
+
+	/**
+	 * Create a template file in the template root.
+	 *
+	 * @param name
+	 * @return
+	 */
+	private IFile createFile(String name) {
+
+		def file = mock(IFile)
+		when(file.name).thenReturn("${name}.html".toString())
+		when(file.fullPath).thenReturn(new Path("${TEMPLATE_ROOT}/${name}.html"))
+		when(file.project).thenReturn(project)
+		when(file.parent).thenReturn(templateRoot)
+		when(file.exists()).thenReturn(true)
+		return file
+	}
+
+	/**
+	 * Create a delta for a change to a file.
+	 *
+	 * @param file
+	 * @param kind
+	 * @param flags
+	 * @return
+	 */
+	private static IResourceDelta createFileDelta(IFile file, int kind, int flags) {
+
+		def delta = mock(IResourceDelta)
+		when(delta.resource).thenReturn(file)
+		when(delta.kind).thenReturn(kind)
+		when(delta.flags).thenReturn(flags)
+		return delta
+	}
+
+	/**
+	 * Create a template in the template root with the given fragment specs.
+	 *
+	 * @param name
+	 * @param fragmentSpecs
+	 * @return
+	 */
+	private static Template createTemplate(String name, String... fragmentSpecs) {
+
+		return new Template(new Path("${TEMPLATE_ROOT}/${name}.html"), name,
+			fragmentSpecs.collect { fragmentSpec -> new Fragment(fragmentSpec, 1, -1) }, [])
+	}
+
+	/**
+	 * Send the template cache a post-change event for the given file deltas,
+	 * all in the test project.
+	 *
+	 * @param fileDeltas
+	 */
+	private void fireChange(IResourceDelta... fileDeltas) {
+
+		def projectDelta = mock(IResourceDelta)
+		when(projectDelta.resource).thenReturn(project)
+
+		def rootDelta = mock(IResourceDelta)
+		doAnswer({ invocation ->
+			IResourceDeltaVisitor visitor = invocation.getArgument(0)
+			if (visitor.visit(projectDelta)) {
+				fileDeltas.each { fileDelta ->
+					visitor.visit(fileDelta)
+				}
+			}
+			return null
+		}).when(rootDelta).accept(any(IResourceDeltaVisitor))
+
+		def event = mock(IResourceChangeEvent)
+		when(event.type).thenReturn(POST_CHANGE)
+		when(event.delta).thenReturn(rootDelta)
+		templateChangeListener.resourceChanged(event)
+	}
+
+	/**
+	 * Wait for template changes, which are made in the background, to have
+	 * been applied.
+	 *
+	 * @param condition
+	 */
+	private static void waitFor(Closure<Boolean> condition) {
+
+		def deadline = System.currentTimeMillis() + 5000
+		while (!condition()) {
+			assertTrue(System.currentTimeMillis() < deadline, 'Timed out waiting for template changes')
+			Thread.sleep(10)
+		}
+	}
+
+	@BeforeEach
+	void setup() {
+
+		templateLoader = mock(TemplateLoader)
+		def workspace = mock(IWorkspace)
+		templateCache = new TemplateCache(templateLoader, new ResourceTree<Template>(), workspace)
+		templateCache.init()
+
+		def listenerCaptor = ArgumentCaptor.forClass(IResourceChangeListener)
+		verify(workspace).addResourceChangeListener(listenerCaptor.capture(), anyInt())
+		templateChangeListener = listenerCaptor.value
+
+		project = mock(IProject)
+		when(project.name).thenReturn('project')
+		templateRoot = mock(IFolder)
+		when(templateRoot.fullPath).thenReturn(new Path(TEMPLATE_ROOT))
+		when(templateRoot.exists()).thenReturn(true)
+		when(project.getFolder('src/main/resources/templates')).thenReturn(templateRoot)
+		javaProject = JavaCore.create(project)
+
+		when(templateLoader.load(any(ProjectTemplateLocator))).thenReturn([createTemplate('index', 'content')])
+		assertNull(templateCache.getFragmentIndex(javaProject))
+		waitFor { -> templateCache.getFragmentIndex(javaProject) != null }
+		fragmentIndex = templateCache.getFragmentIndex(javaProject)
+		assertNotNull(fragmentIndex.findFragment('index', 'content'))
+	}
+
+	@AfterEach
+	void cleanup() {
+
+		templateCache.close()
+	}
+
+	@Test
+	void addedTemplateIsAddedToTheIndex() {
+
+		def file = createFile('about')
+		when(templateLoader.loadTemplate(file, 'about')).thenReturn(createTemplate('about', 'team'))
+
+		fireChange(createFileDelta(file, IResourceDelta.ADDED, 0))
+		waitFor { -> fragmentIndex.findTemplate('about') != null }
+		assertNotNull(fragmentIndex.findFragment('about', 'team'))
+	}
+
+	@Test
+	void changedTemplateContentReplacesTheTemplate() {
+
+		def file = createFile('index')
+		when(templateLoader.loadTemplate(file, 'index')).thenReturn(createTemplate('index', 'header'))
+
+		fireChange(createFileDelta(file, IResourceDelta.CHANGED, IResourceDelta.CONTENT))
+		waitFor { -> fragmentIndex.findFragment('index', 'header') != null }
+		assertNull(fragmentIndex.findFragment('index', 'content'))
+	}
+
+	@Test
+	void removedTemplateIsRemovedFromTheIndex() {
+
+		def file = createFile('index')
+		when(file.exists()).thenReturn(false)
+
+		fireChange(createFileDelta(file, IResourceDelta.REMOVED, 0))
+		waitFor { -> fragmentIndex.findTemplate('index') == null }
+		verify(templateLoader, never()).loadTemplate(any(IFile), anyString())
+	}
+
+	@Test
+	void changesOtherThanContentAreIgnored() {
+
+		def indexFile = createFile('index')
+		def aboutFile = createFile('about')
+		when(templateLoader.loadTemplate(aboutFile, 'about')).thenReturn(createTemplate('about'))
+
+		// The added template comes after the marker change, so once it's in the
+		// index the marker change has been handled too
+		fireChange(createFileDelta(indexFile, IResourceDelta.CHANGED, IResourceDelta.MARKERS),
+			createFileDelta(aboutFile, IResourceDelta.ADDED, 0))
+		waitFor { -> fragmentIndex.findTemplate('about') != null }
+		verify(templateLoader, never()).loadTemplate(indexFile, 'index')
+		assertNotNull(fragmentIndex.findFragment('index', 'content'))
+	}
+}